@@ -0,0 +1,193 @@
+package benchmarks;
+
+import animals.Animals;
+import animals.Sheep;
+import game.FixedModel;
+import game.Model;
+import interfaces.InterfaceModel;
+import util.GameSettings;
+import util.SplitMix64;
+
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.SplittableRandom;
+
+/**
+ * This class builds the boards the benchmarks run on, always with the same seed, and puts them back
+ * in their starting state between measurements without allocating.
+ */
+public class BoardFixture
+{
+    // Seed of every random board, so all runs measure the same boards.
+    public static final long SEED = 42;
+
+    // Names of the boards, as accepted by the setup parameter of the benchmarks.
+    public static final String FIXED_8 = "fixed8";
+    public static final String RANDOM_6 = "random6";
+    public static final String RANDOM_25 = "random25";
+    public static final String RANDOM_50 = "random50";
+    public static final String STRESS_1000 = "stress1000";
+
+    private final Model model;
+    private final int dogRow;
+    private final int dogCol;
+    // The sheep of the board in row-major order of their starting cells, and those cells.
+    private final Sheep[] sheep;
+    private final int[] sheepRows;
+    private final int[] sheepCols;
+
+    // Builds the named board.
+    public BoardFixture(String setup)
+    {
+        SplittableRandom random = new SplittableRandom(SEED);
+        switch (setup)
+        {
+            case FIXED_8 -> {
+                GameSettings settings = new GameSettings();
+                model = new FixedModel(settings, new SplitMix64(SEED));
+                model.initNewGame(settings);
+            }
+            case RANDOM_6 -> model = randomModel(6, random);
+            case RANDOM_25 -> model = randomModel(25, random);
+            case RANDOM_50 -> model = randomModel(50, random);
+            case STRESS_1000 -> model = stressModel(random);
+            default -> throw new IllegalArgumentException("Unknown board setup: " + setup);
+        }
+
+        // Record the starting positions, row by row, so reset can restore them.
+        dogRow = model.getDog().getRow();
+        dogCol = model.getDog().getCol();
+        int nrBoardCols = model.getSettings().getNrBoardCols();
+        sheep = model.getSheep().toArray(new Sheep[0]);
+        Arrays.sort(sheep, Comparator.comparingInt(s -> s.getRow() * nrBoardCols + s.getCol()));
+        sheepRows = new int[sheep.length];
+        sheepCols = new int[sheep.length];
+        for (int k = 0; k < sheep.length; k++)
+        {
+            sheepRows[k] = sheep[k].getRow();
+            sheepCols[k] = sheep[k].getCol();
+        }
+    }
+
+    // Builds a square board of the given size with a pen and a number of sheep drawn from the same ranges
+    // as a random setup game.
+    private static Model randomModel(int size, SplittableRandom random)
+    {
+        int nrPenRows = random.nextInt(2, size / 2 + 1);
+        int nrPenCols = random.nextInt(2, size / 2 + 1);
+        int penSpace = nrPenRows * nrPenCols;
+        int nrSheep = random.nextInt(1, Math.min((size * size - penSpace) / 3 + 1, penSpace + 1));
+        return placeAnimals(new GameSettings(size, size, 1, nrSheep, nrPenRows, nrPenCols), random);
+    }
+
+    // Builds a 1000x1000 board with a 100x100 pen and 20000 sheep.
+    private static Model stressModel(SplittableRandom random)
+    {
+        return placeAnimals(new GameSettings(1000, 1000, 1, 20000, 100, 100), random);
+    }
+
+    // Places the pen, the sheep and the dog of the given settings at random positions of an empty board.
+    private static Model placeAnimals(GameSettings settings, SplittableRandom random)
+    {
+        Model model = new Model(settings, new SplitMix64(SEED));
+        model.initNewGame(settings);
+        model.setGameState(InterfaceModel.GAME_IN_PROGRESS);
+
+        int firstPenRow = random.nextInt(0, settings.getNrBoardRows() - settings.getNrPenRows());
+        int firstPenCol = random.nextInt(0, settings.getNrBoardCols() - settings.getNrPenCols());
+        for (int i = firstPenRow; i < firstPenRow + settings.getNrPenRows(); i++)
+        {
+            for (int j = firstPenCol; j < firstPenCol + settings.getNrPenCols(); j++)
+            {
+                model.setCellInfo(i, j, Animals.PEN_CELL_ID);
+            }
+        }
+        model.initPenDistanceField();
+
+        for (int i = 0; i < settings.getNrSheep(); i++)
+        {
+            int[] cell = randomGrassCell(model, random);
+            Sheep sheep = new Sheep(i, cell[0], cell[1]);
+            model.getSheep().add(sheep);
+            model.placeSheep(sheep);
+        }
+
+        int[] cell = randomGrassCell(model, random);
+        model.getDog().setPosition(cell[0], cell[1]);
+        model.setCellInfo(cell[0], cell[1], Animals.DOG_ID);
+        return model;
+    }
+
+    // Returns the row and column of a random grass cell.
+    private static int[] randomGrassCell(Model model, SplittableRandom random)
+    {
+        int row;
+        int col;
+        do
+        {
+            row = random.nextInt(model.getSettings().getNrBoardRows());
+            col = random.nextInt(model.getSettings().getNrBoardCols());
+        }
+        while (model.getCellInfo(row, col) != Animals.GRASS_CELL_ID);
+        return new int[] {row, col};
+    }
+
+    // Puts the dog and every sheep back on their starting cells.
+    public void reset()
+    {
+        for (int k = 0; k < sheep.length; k++)
+        {
+            if (!sheep[k].isInPen())
+            {
+                model.setCellInfo(sheep[k].getRow(), sheep[k].getCol(), Animals.GRASS_CELL_ID);
+            }
+        }
+        model.setCellInfo(model.getDog().getRow(), model.getDog().getCol(), Animals.GRASS_CELL_ID);
+        for (int k = 0; k < sheep.length; k++)
+        {
+            sheep[k].setPosition(sheepRows[k], sheepCols[k]);
+            model.placeSheep(sheep[k]);
+        }
+        model.getDog().setPosition(dogRow, dogCol);
+        model.setCellInfo(dogRow, dogCol, Animals.DOG_ID);
+        model.setGameState(InterfaceModel.GAME_IN_PROGRESS);
+    }
+
+    // Puts the given sheep back on its starting cell, after a single behaviour method moved it.
+    public void resetSheep(int k)
+    {
+        if (sheep[k].getRow() != sheepRows[k] || sheep[k].getCol() != sheepCols[k])
+        {
+            if (!sheep[k].isInPen())
+            {
+                model.setCellInfo(sheep[k].getRow(), sheep[k].getCol(), Animals.GRASS_CELL_ID);
+            }
+            sheep[k].setPosition(sheepRows[k], sheepCols[k]);
+            model.placeSheep(sheep[k]);
+        }
+    }
+
+    // Getter of the model of the board.
+    public Model getModel()
+    {
+        return model;
+    }
+
+    // Returns the number of sheep on the board at the start.
+    public int getNrSheep()
+    {
+        return sheep.length;
+    }
+
+    // Returns the starting row of the given sheep, counting sheep row by row.
+    public int getSheepRow(int k)
+    {
+        return sheepRows[k];
+    }
+
+    // Returns the starting column of the given sheep, counting sheep row by row.
+    public int getSheepCol(int k)
+    {
+        return sheepCols[k];
+    }
+}
@@ -0,0 +1,164 @@
+package benchmarks;
+
+import animals.Animals;
+import game.Board;
+import game.DenseBoard;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import util.GameSettings;
+
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * This class compares the flat DenseBoard with the byte[][] board the model used before,
+ * accessed the way the model accessed it: every read through a bounds-checked getCellInfo.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class BoardLayoutBenchmark
+{
+    @Param({"8", "50", "1000"})
+    public int size;
+
+    private NestedBoard nestedBoard;
+    private Board board;
+
+    // Fills both layouts with the same random cells, with a fixed seed.
+    @Setup
+    public void setUp()
+    {
+        SplittableRandom random = new SplittableRandom(42);
+        nestedBoard = new NestedBoard(new GameSettings(size, size, 1, 0, 0, 0));
+        board = new DenseBoard(size, size);
+        for (int i = 0; i < size; i++)
+        {
+            for (int j = 0; j < size; j++)
+            {
+                byte cellType = (byte) random.nextInt(Animals.GRASS_CELL_ID, Animals.PEN_CELL_ID + 1);
+                nestedBoard.stateOfBoard[i][j] = cellType;
+                board.set(i, j, cellType);
+            }
+        }
+    }
+
+    // Counts the free cells next to every cell with the byte[][] board, as the sheep behaviour probes them.
+    @Benchmark
+    public int nestedNeighbourProbes()
+    {
+        int nrFreeCells = 0;
+        for (int i = 0; i < size; i++)
+        {
+            for (int j = 0; j < size; j++)
+            {
+                if (nestedBoard.isCellFreeOfAnimals(i - 1, j)) nrFreeCells++;
+                if (nestedBoard.isCellFreeOfAnimals(i + 1, j)) nrFreeCells++;
+                if (nestedBoard.isCellFreeOfAnimals(i, j - 1)) nrFreeCells++;
+                if (nestedBoard.isCellFreeOfAnimals(i, j + 1)) nrFreeCells++;
+            }
+        }
+        return nrFreeCells;
+    }
+
+    // Counts the free cells next to every cell with the flat board.
+    @Benchmark
+    public int flatNeighbourProbes()
+    {
+        int nrFreeCells = 0;
+        for (int i = 0; i < size; i++)
+        {
+            for (int j = 0; j < size; j++)
+            {
+                if (Board.isFreeOfAnimals(board.getNear(i - 1, j))) nrFreeCells++;
+                if (Board.isFreeOfAnimals(board.getNear(i + 1, j))) nrFreeCells++;
+                if (Board.isFreeOfAnimals(board.getNear(i, j - 1))) nrFreeCells++;
+                if (Board.isFreeOfAnimals(board.getNear(i, j + 1))) nrFreeCells++;
+            }
+        }
+        return nrFreeCells;
+    }
+
+    // Counts the sheep cells of the byte[][] board through getCellInfo.
+    @Benchmark
+    public int nestedScan()
+    {
+        int nrSheep = 0;
+        for (int i = 0; i < size; i++)
+        {
+            for (int j = 0; j < size; j++)
+            {
+                if (nestedBoard.getCellInfo(i, j) == Animals.SHEEP_ID) nrSheep++;
+            }
+        }
+        return nrSheep;
+    }
+
+    // Counts the sheep cells of the flat board.
+    @Benchmark
+    public int flatScan()
+    {
+        int nrSheep = 0;
+        for (int i = 0; i < size; i++)
+        {
+            for (int j = 0; j < size; j++)
+            {
+                if (board.get(i, j) == Animals.SHEEP_ID) nrSheep++;
+            }
+        }
+        return nrSheep;
+    }
+
+    // The board of the model before the flat Board, with its cell accessors unchanged.
+    private static class NestedBoard
+    {
+        private final GameSettings settings;
+        private final byte[][] stateOfBoard;
+
+        NestedBoard(GameSettings settings)
+        {
+            this.settings = settings;
+            this.stateOfBoard = new byte[settings.getNrBoardRows()][settings.getNrBoardCols()];
+        }
+
+        GameSettings getSettings()
+        {
+            return settings;
+        }
+
+        byte getCellInfo(int row, int column)
+        {
+            if (row >= getSettings().getNrBoardRows() ||
+                    column >= getSettings().getNrBoardCols() ||
+                    row < 0 ||
+                    column < 0)
+            {
+                return (byte) -1;
+            }
+            else
+            {
+                return this.stateOfBoard[row][column];
+            }
+        }
+
+        boolean isCellFreeOfAnimals(int rowToCheck, int colToCheck)
+        {
+            return getCellInfo(rowToCheck, colToCheck) != Animals.UPDATED_SHEEP_ID &&
+                    getCellInfo(rowToCheck, colToCheck) != Animals.SHEEP_ID &&
+                    getCellInfo(rowToCheck, colToCheck) != -1 &&
+                    getCellInfo(rowToCheck, colToCheck) != Animals.DOG_ID;
+        }
+    }
+}
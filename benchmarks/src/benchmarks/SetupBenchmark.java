@@ -0,0 +1,73 @@
+package benchmarks;
+
+import game.RandomModel;
+import game.SetupCheck;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import util.GameSettings;
+import util.SplitMix64;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * This class measures setting up random games, one seed after the other, without a setup check and with
+ * the flood fills of SetupCheck, and the check alone on a fixed set of setups.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class SetupBenchmark
+{
+    // Number of setups the check alone is measured on, in turn.
+    private static final int NR_CHECKED_SETUPS = 1024;
+
+    @Param({"none", "fills"})
+    public String check;
+
+    private final GameSettings settings = new GameSettings();
+    private SetupCheck setupCheck;
+    private RandomModel[] setups;
+    private long seed;
+    private int next;
+
+    @Setup(Level.Trial)
+    public void buildSetups()
+    {
+        setupCheck = check.equals("fills") ? new SetupCheck() : null;
+        setups = new RandomModel[NR_CHECKED_SETUPS];
+        for (int k = 0; k < setups.length; k++)
+        {
+            setups[k] = new RandomModel(settings, new SplitMix64(BoardFixture.SEED + k));
+            setups[k].initNewGame(settings);
+        }
+    }
+
+    @Benchmark
+    public RandomModel generate()
+    {
+        RandomModel model = new RandomModel(settings, new SplitMix64(seed++));
+        model.setSetupCheck(setupCheck);
+        model.initNewGame(settings);
+        return model;
+    }
+
+    @Benchmark
+    public boolean checkOnly()
+    {
+        next = (next + 1) & (NR_CHECKED_SETUPS - 1);
+        return setupCheck != null && setupCheck.accepts(setups[next]);
+    }
+}
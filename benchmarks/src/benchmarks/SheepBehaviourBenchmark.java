@@ -0,0 +1,91 @@
+package benchmarks;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * This class measures the behaviour methods the model calls for a single sheep, and the win check,
+ * on every board of BoardFixture. Each call is made for the next sheep of the board in turn, and the sheep
+ * is put back on its cell afterwards, so the board does not drift between calls.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class SheepBehaviourBenchmark
+{
+    @Param({BoardFixture.FIXED_8, BoardFixture.RANDOM_6, BoardFixture.RANDOM_25, BoardFixture.RANDOM_50,
+            BoardFixture.STRESS_1000})
+    public String setup;
+
+    private BoardFixture fixture;
+    private int nextSheep;
+
+    @Setup(Level.Trial)
+    public void buildBoard()
+    {
+        fixture = new BoardFixture(setup);
+    }
+
+    @Benchmark
+    public void sheepFlocking()
+    {
+        int k = nextSheep();
+        fixture.getModel().sheepFlocking(fixture.getSheepRow(k), fixture.getSheepCol(k));
+        fixture.resetSheep(k);
+    }
+
+    @Benchmark
+    public void sheepMoveAwayFromDog()
+    {
+        int k = nextSheep();
+        fixture.getModel().sheepMoveAwayFromDog(fixture.getSheepRow(k), fixture.getSheepCol(k));
+        fixture.resetSheep(k);
+    }
+
+    @Benchmark
+    public boolean chasedSheepReluctance()
+    {
+        int k = nextSheep();
+        boolean isReluctant = fixture.getModel().chasedSheepReluctance(fixture.getSheepRow(k), fixture.getSheepCol(k));
+        fixture.resetSheep(k);
+        return isReluctant;
+    }
+
+    @Benchmark
+    public boolean freeSheepReluctance()
+    {
+        int k = nextSheep();
+        boolean isReluctant = fixture.getModel().freeSheepReluctance(fixture.getSheepRow(k), fixture.getSheepCol(k));
+        fixture.resetSheep(k);
+        return isReluctant;
+    }
+
+    @Benchmark
+    public boolean areAllSheepInPen()
+    {
+        return fixture.getModel().areAllSheepInPen();
+    }
+
+    // Returns the sheep to use in the next call, going through all sheep of the board in turn.
+    private int nextSheep()
+    {
+        int k = nextSheep;
+        nextSheep = k + 1 == fixture.getNrSheep() ? 0 : k + 1;
+        return k;
+    }
+}
@@ -0,0 +1,62 @@
+package benchmarks;
+
+import game.ModelSnapshot;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * This class measures taking a snapshot of a model, restoring one, and a whole branch as a search makes it:
+ * restoring a snapshot and playing one turn from it, on every board of BoardFixture.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class SnapshotBenchmark
+{
+    @Param({BoardFixture.FIXED_8, BoardFixture.RANDOM_25, BoardFixture.RANDOM_50, BoardFixture.STRESS_1000})
+    public String setup;
+
+    private BoardFixture fixture;
+    private ModelSnapshot start;
+
+    @Setup(Level.Trial)
+    public void buildBoard()
+    {
+        fixture = new BoardFixture(setup);
+        start = fixture.getModel().snapshot();
+    }
+
+    @Benchmark
+    public ModelSnapshot snapshot()
+    {
+        return fixture.getModel().snapshot();
+    }
+
+    @Benchmark
+    public void restore()
+    {
+        fixture.getModel().restore(start);
+    }
+
+    @Benchmark
+    public void restoreAndPlayTurn()
+    {
+        fixture.getModel().restore(start);
+        fixture.getModel().sheepBehaviour();
+    }
+}
@@ -0,0 +1,61 @@
+package benchmarks;
+
+import game.TurnEngine;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * This class measures a whole turn of the sheep, Model.sheepBehaviour, on every board of BoardFixture.
+ * The board is put back in its starting state before each turn, so every turn moves the same sheep.
+ * Every turn engine of the model is measured.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class TurnBenchmark
+{
+    @Param({BoardFixture.FIXED_8, BoardFixture.RANDOM_6, BoardFixture.RANDOM_25, BoardFixture.RANDOM_50,
+            BoardFixture.STRESS_1000})
+    public String setup;
+
+    // Resetting the board rebuilds the front buffer of the buffered engines, which is measured with the turn.
+    @Param({"IN_PLACE", "DOUBLE_BUFFERED", "PARALLEL"})
+    public TurnEngine engine;
+
+    private BoardFixture fixture;
+
+    @Setup(Level.Trial)
+    public void buildBoard()
+    {
+        fixture = new BoardFixture(setup);
+        fixture.getModel().setTurnEngine(engine);
+    }
+
+    @Setup(Level.Invocation)
+    public void resetBoard()
+    {
+        fixture.reset();
+    }
+
+    @Benchmark
+    public byte sheepBehaviour()
+    {
+        fixture.getModel().sheepBehaviour();
+        return fixture.getModel().getGameState();
+    }
+}
@@ -8,13 +8,13 @@ package animals;
 public class Animals
 {
 	// IDs of all objects that can be found in the board of the game.
-    public static byte GRASS_CELL_ID = 0;
-	public static byte DOG_ID = 1;
-	public static byte SHEEP_ID = 2;
-	public static byte PEN_CELL_ID = 3;
+    public static final byte GRASS_CELL_ID = 0;
+	public static final byte DOG_ID = 1;
+	public static final byte SHEEP_ID = 2;
+	public static final byte PEN_CELL_ID = 3;
 	// This ID is used only from recently moved sheep, and changes to sheep ID almost immediately.
 	// It never appears when the board is displayed.
-	public static byte UPDATED_SHEEP_ID = 4;
+	public static final byte UPDATED_SHEEP_ID = 4;
 
 	// Initialize variables.
     public byte type;
@@ -1,5 +1,7 @@
 package animals;
 
+import util.Direction;
+
 /**
  * This class is used to extend the Animals class and represents the Dog.
  * It can be found especially useful if the game is expanded, for example, use 2 or more dogs in a game.
@@ -16,30 +18,10 @@ public class Dog extends Animals
 		setPosition(0, 0);
 	}
 
-	// Setter for dog's row using a single char, to increase or decrease it by 1.
-	public void setDogRow(char move)
-	{
-		if (move == 'w')
-		{
-			setRow(getRow() - 1);
-		}
-		else if (move == 's')
-		{
-			setRow(getRow() + 1);
-		}
-	}
-
-	// Setter for dog's column using a single char, to increase or decrease it by 1.
-	public void setDogColumn(char move)
+	// Moves the dog by one cell in the given direction.
+	public void move(Direction direction)
 	{
-		if (move == 'a')
-		{
-			setCol(getCol() - 1);
-		}
-		else if (move == 'd')
-		{
-			setCol(getCol() + 1);
-		}
+		setPosition(getRow() + direction.getRowDelta(), getCol() + direction.getColDelta());
 	}
 
 	// Setter for dog's row using an int, to set the exact dog row, anywhere in the board.
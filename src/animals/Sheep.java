@@ -8,6 +8,9 @@ package animals;
 
 public class Sheep extends Animals
 {
+	// True once the sheep has entered the pen, where it stays.
+	private boolean inPen;
+
 	// Constructor uses Animals class constructor to set the type and the id of the sheep.
 	public Sheep (int id)
 	{
@@ -20,4 +23,16 @@ public class Sheep extends Animals
 		super("Sheep", id);
 		setPosition(sheepRow, sheepColumn);
 	}
+
+	// Getter of whether the sheep is in the pen.
+	public boolean isInPen()
+	{
+		return inPen;
+	}
+
+	// Setter of whether the sheep is in the pen.
+	public void setInPen(boolean inPen)
+	{
+		this.inPen = inPen;
+	}
 }
\ No newline at end of file
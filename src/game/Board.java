@@ -0,0 +1,116 @@
+package game;
+
+import animals.Animals;
+
+import java.nio.ByteBuffer;
+
+/**
+ * This class is the board of a game: the type of every cell, as grass, pen or an animal. A DenseBoard keeps every
+ * cell in an array, and a SparseBoard only the cells holding an animal, for fields too large for an array.
+ * The model reads and changes the cells, and places the pen, only through the methods of this class.
+ * A cell is named by a long holding its row in the high 32 bits and its column in the low 32 bits, as made by cell,
+ * so the cells of any board fit in a long and sort in row-major order.
+ */
+public abstract class Board
+{
+    // Type of the cells outside the board, as returned by getCellInfo.
+    public static final byte OFF_BOARD_ID = -1;
+
+    // Bit set for each cell type an animal can move onto: grass (0) and pen (3).
+    // The type is masked to 3 bits, so the off board type -1 reads as bit 7, which is not set.
+    private static final int FREE_OF_ANIMALS_MASK = (1 << Animals.GRASS_CELL_ID) | (1 << Animals.PEN_CELL_ID);
+
+    private final int nrRows;
+    private final int nrCols;
+
+    // Creates a board with the given dimensions.
+    protected Board(int nrRows, int nrCols)
+    {
+        this.nrRows = nrRows;
+        this.nrCols = nrCols;
+    }
+
+    // Returns the type of the given cell, or OFF_BOARD_ID if it is outside the board.
+    public abstract byte get(int row, int col);
+
+    // Returns the type of the given cell, which must be on the board or on the ring around it,
+    // such as a cell next to a cell of the board. Cells of the ring read as OFF_BOARD_ID.
+    public abstract byte getNear(int row, int col);
+
+    // Changes the type of the given cell. Throws an IndexOutOfBoundsException if it is outside the board.
+    public abstract void set(int row, int col, byte value);
+
+    // Makes the rectangle of the given size with the given first row and column the pen. Its cells must be grass.
+    public abstract void placePen(int firstPenRow, int firstPenCol, int nrPenRows, int nrPenCols);
+
+    // Returns the nearest pen cell of every cell of the board, built from the pen placed on it.
+    public abstract PenDistanceField buildPenDistanceField();
+
+    // Returns true if the board keeps every cell, so a copy of it costs as much as its number of cells.
+    // A parallel turn gives each band such a copy and marks the cells changed in an array of every cell.
+    public abstract boolean keepsEveryCell();
+
+    // Makes every cell of this board the same as the given board, which must have the same dimensions
+    // and keep its cells in the same way.
+    public abstract void copyFrom(Board other);
+
+    // Returns a new board with the same dimensions and cells as this one.
+    public abstract Board copy();
+
+    // Returns the cells of the given row, from the given column on and at most 64 of them, that have the given type,
+    // as a mask where bit k is set if the cell of column firstCol + k has it.
+    abstract long rowMask(int row, int firstCol, byte cellType);
+
+    // Writes the type of every cell of the board to the given buffer, row after row.
+    public abstract void writeTo(ByteBuffer buffer);
+
+    // Reads the type of every cell of the board from the given buffer, as written by writeTo.
+    public abstract void readFrom(ByteBuffer buffer);
+
+    // Returns the cell of the given row and column.
+    public static long cell(int row, int col)
+    {
+        return ((long) row << 32) | col;
+    }
+
+    // Returns the row of the given cell.
+    public static int rowOf(long cell)
+    {
+        return (int) (cell >>> 32);
+    }
+
+    // Returns the column of the given cell.
+    public static int colOf(long cell)
+    {
+        return (int) cell;
+    }
+
+    // Returns true if the given cell type is grass or pen, meaning an animal can move there.
+    public static boolean isFreeOfAnimals(byte cellType)
+    {
+        return ((FREE_OF_ANIMALS_MASK >>> (cellType & 7)) & 1) != 0;
+    }
+
+    // Getter of number of rows.
+    public int getNrRows()
+    {
+        return nrRows;
+    }
+
+    // Getter of number of columns.
+    public int getNrCols()
+    {
+        return nrCols;
+    }
+
+    // Throws an IllegalArgumentException unless the given board has the dimensions of this board and is
+    // of the given class, as copyFrom needs.
+    void checkSameKind(Board other, Class<? extends Board> boardClass)
+    {
+        if (other.getClass() != boardClass || other.nrRows != nrRows || other.nrCols != nrCols)
+        {
+            throw new IllegalArgumentException("boards differ in size or storage: " + other.nrRows + "x"
+                    + other.nrCols + ", " + nrRows + "x" + nrCols);
+        }
+    }
+}
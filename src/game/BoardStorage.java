@@ -0,0 +1,15 @@
+package game;
+
+/**
+ * The ways a model can keep the cells of its board. Both give the same games; they differ in what a game costs.
+ */
+public enum BoardStorage
+{
+    // Every cell is kept in an array, which is the fastest to read and costs a byte per cell.
+    DENSE,
+
+    // Only the pen, as a rectangle, and the cells holding an animal are kept, so the memory and the time of a turn
+    // depend on the number of animals and not on the size of the board. Parallel turns are moved as
+    // DOUBLE_BUFFERED, and writing the state of the game still costs a byte per cell.
+    SPARSE
+}
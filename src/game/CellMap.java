@@ -0,0 +1,192 @@
+package game;
+
+import util.SplitMix64;
+
+import java.util.Arrays;
+
+/**
+ * This class maps cells, given as long keys that are never negative, to int values. The keys and the values are kept
+ * in two arrays of an open addressing table with linear probing, so a lookup reads one or two slots and nothing is
+ * boxed. The table doubles when it gets half full, and a removed key shifts the keys probed after it back into its
+ * slot, so the table never holds deleted markers.
+ */
+public class CellMap
+{
+    // Key of the slots that hold nothing.
+    private static final long EMPTY = -1;
+
+    private long[] keys;
+    private int[] values;
+    private int mask;
+    private int size;
+
+    // Creates an empty map that holds the given number of cells before it grows.
+    public CellMap(int expectedSize)
+    {
+        int capacity = Integer.highestOneBit(Math.max(8, expectedSize)) << 2;
+        this.keys = new long[capacity];
+        this.values = new int[capacity];
+        this.mask = capacity - 1;
+        Arrays.fill(keys, EMPTY);
+    }
+
+    // Returns the value of the given cell, or the given value if the cell is not in the map.
+    public int get(long cell, int missingValue)
+    {
+        for (int slot = slotOf(cell); keys[slot] != EMPTY; slot = (slot + 1) & mask)
+        {
+            if (keys[slot] == cell)
+            {
+                return values[slot];
+            }
+        }
+        return missingValue;
+    }
+
+    // Returns true if the given cell is in the map.
+    public boolean contains(long cell)
+    {
+        for (int slot = slotOf(cell); keys[slot] != EMPTY; slot = (slot + 1) & mask)
+        {
+            if (keys[slot] == cell)
+            {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    // Sets the value of the given cell, adding the cell if it is not in the map.
+    public void put(long cell, int value)
+    {
+        int slot = slotOf(cell);
+        while (keys[slot] != EMPTY)
+        {
+            if (keys[slot] == cell)
+            {
+                values[slot] = value;
+                return;
+            }
+            slot = (slot + 1) & mask;
+        }
+        keys[slot] = cell;
+        values[slot] = value;
+        size++;
+        if (2 * size > keys.length)
+        {
+            grow();
+        }
+    }
+
+    // Removes the given cell from the map, if it is there.
+    public void remove(long cell)
+    {
+        int slot = slotOf(cell);
+        while (keys[slot] != cell)
+        {
+            if (keys[slot] == EMPTY)
+            {
+                return;
+            }
+            slot = (slot + 1) & mask;
+        }
+        size--;
+        // Move back every key after the removed one that cannot be found from its home slot once the slot is empty.
+        int next = (slot + 1) & mask;
+        while (keys[next] != EMPTY)
+        {
+            int home = slotOf(keys[next]);
+            if (((next - home) & mask) >= ((next - slot) & mask))
+            {
+                keys[slot] = keys[next];
+                values[slot] = values[next];
+                slot = next;
+            }
+            next = (next + 1) & mask;
+        }
+        keys[slot] = EMPTY;
+    }
+
+    // Removes all cells from the map.
+    public void clear()
+    {
+        Arrays.fill(keys, EMPTY);
+        size = 0;
+    }
+
+    // Makes this map hold the same cells and values as the given one.
+    public void copyFrom(CellMap other)
+    {
+        if (keys.length != other.keys.length)
+        {
+            keys = new long[other.keys.length];
+            values = new int[other.keys.length];
+            mask = other.mask;
+        }
+        System.arraycopy(other.keys, 0, keys, 0, keys.length);
+        System.arraycopy(other.values, 0, values, 0, values.length);
+        size = other.size;
+    }
+
+    // Returns the number of cells in the map.
+    public int size()
+    {
+        return size;
+    }
+
+    // Returns the number of slots of the table, which the cells of the map are read from with isUsed, keyAt
+    // and valueAt.
+    public int capacity()
+    {
+        return keys.length;
+    }
+
+    // Returns true if the given slot of the table holds a cell.
+    public boolean isUsed(int slot)
+    {
+        return keys[slot] != EMPTY;
+    }
+
+    // Returns the cell held in the given slot of the table.
+    public long keyAt(int slot)
+    {
+        return keys[slot];
+    }
+
+    // Returns the value of the cell held in the given slot of the table.
+    public int valueAt(int slot)
+    {
+        return values[slot];
+    }
+
+    // Returns the slot the given cell is looked for from. Cells of a board are close together, so they are scrambled
+    // to spread them over the table.
+    private int slotOf(long cell)
+    {
+        return (int) SplitMix64.mix64(cell) & mask;
+    }
+
+    // Doubles the size of the table, moving every cell to its slot in the new table.
+    private void grow()
+    {
+        long[] oldKeys = keys;
+        int[] oldValues = values;
+        keys = new long[oldKeys.length << 1];
+        values = new int[oldKeys.length << 1];
+        mask = keys.length - 1;
+        Arrays.fill(keys, EMPTY);
+        for (int k = 0; k < oldKeys.length; k++)
+        {
+            if (oldKeys[k] != EMPTY)
+            {
+                int slot = slotOf(oldKeys[k]);
+                while (keys[slot] != EMPTY)
+                {
+                    slot = (slot + 1) & mask;
+                }
+                keys[slot] = oldKeys[k];
+                values[slot] = oldValues[k];
+            }
+        }
+    }
+}
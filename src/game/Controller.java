@@ -1,8 +1,14 @@
 package game;
 
+import interfaces.InterfaceInputSource;
 import interfaces.InterfaceView;
-import interfaces.InterfaceModel;
+import replay.ReplayWriter;
 import util.GameSettings;
+import util.SplitMix64;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.concurrent.ThreadLocalRandom;
 
 /**
  * This class controls how the game flows.
@@ -12,13 +18,35 @@ public class Controller {
     // References to communicate with view
     private final InterfaceView view;
 
+    // Source the choices of the player are requested from.
+    private final InterfaceInputSource input;
+
     // The current game settings.
     private GameSettings settings;
 
-    // The constructor creates view and loads default settings.
+    // Directory every game is recorded to as a replay file, or null if games are not recorded.
+    private final Path replayDirectory;
+
+    // The constructor creates a text view, which also requests the choices of the player, and loads default settings.
     public Controller()
     {
-        this.view = new TextView();
+        this(new TextView());
+    }
+
+    // The constructor uses the given text view, which also requests the choices of the player, and loads default
+    // settings.
+    public Controller(TextView view)
+    {
+        this(view, view, null);
+    }
+
+    // The constructor uses the given view and source of input, loads default settings and records every game to
+    // a replay file in the given directory, unless it is null.
+    public Controller(InterfaceView view, InterfaceInputSource input, Path replayDirectory)
+    {
+        this.view = view;
+        this.input = input;
+        this.replayDirectory = replayDirectory;
         settings = new GameSettings();
     }
 
@@ -28,7 +56,7 @@ public class Controller {
         view.displayWelcomeMessage();
         do
         {
-            char c = view.requestMenuSelection();
+            char c = input.requestMenuSelection();
             if (c == '1')
             {
                 startNewGame();
@@ -46,88 +74,56 @@ public class Controller {
     }
 
     // Starts a new game with the fixed setup.
+    // The seed of the game is kept so the game can be recorded.
     private void startNewGame()
     {
-    	FixedModel model = new FixedModel(settings);
+        long seed = ThreadLocalRandom.current().nextLong();
+    	FixedModel model = new FixedModel(settings, new SplitMix64(seed));
         model.initNewGame(settings);
-        startMatchLoop(model);
+        startMatchLoop(model, openReplay(false, seed, model));
     }
 
     // Starts a new game with a random setup.
     private void startRandomNewGame()
     {
-    	RandomModel model = new RandomModel(settings);
+        long seed = ThreadLocalRandom.current().nextLong();
+    	RandomModel model = new RandomModel(settings, new SplitMix64(seed));
         model.initNewGame(settings);
-        startMatchLoop(model);
+        startMatchLoop(model, openReplay(true, seed, model));
     }
 
-    // Starts a match loop.
-    // The user is asked to make moves until there is a victory or until the player concedes.
-    // The state of the board of the game is displayed when the dog moves.
-    private void startMatchLoop(Model model)
+    // Creates the replay file of a new game, or returns null if games are not recorded or the file cannot be created.
+    private ReplayWriter openReplay(boolean randomSetup, long seed, Model model)
     {
-        byte gameState;
-        gameState = model.getGameState();
-
-        // Display the message corresponding to the initial game state.
-        view.displayGameState(gameState);
-
-        // Display the initial state of the board.
-        view.displayBoard(model);
-
-        // Initialize a counter of the moves made so far.
-        int moveCount = 0;
-
-        while((gameState = model.getGameState()) == InterfaceModel.GAME_IN_PROGRESS)
+        if (replayDirectory == null)
         {
-            // Ask the player to make a valid move.
-            char move = askForValidMove(model);
-
-            // Display the move chosen by the player.
-            view.displayChosenMove(move);
-
-            // Implement the move chosen.
-            model.makeMove(move);
-
-            // If the player does not concede, implement sheep behaviour according to the dog's move and
-            // display the updated state of the board. Also add 1 to the counter of moves made so far.
-            if (move != 'o')
-            {
-                model.sheepBehaviour();
-                view.displayBoard(model);
-                moveCount += 1;
-            }
-
-            // Display the number of moves done so far.
-            view.displayMoveCount(moveCount);
-
+            return null;
+        }
+        Path path = replayDirectory.resolve(String.format("game-%016x.sdr", seed));
+        try
+        {
+            return ReplayWriter.create(path, randomSetup, settings, seed, model,
+                    ReplayWriter.DEFAULT_KEYFRAME_INTERVAL);
+        }
+        catch (IOException e)
+        {
+            view.displayError("The game cannot be recorded to " + path + ": " + e.getMessage());
+            return null;
         }
-
-        // As the game has ended, display the outcome.
-        view.displayGameState(gameState);
     }
 
-    // Ask the player to submit a move command.
-    // Ask for a valid move until a move accepted by the model is entered.
-    private char askForValidMove(Model model)
+    // Starts a match loop.
+    // The player is asked to make moves until there is a victory or until the player concedes, and every move is
+    // fed to a match, which displays the board when the dog moves and rejects the moves that are not valid.
+    // Every turn is recorded to the given replay, unless it is null. The match commits the Flight Recorder event
+    // of the end of the game, with its number of moves.
+    private void startMatchLoop(Model model, ReplayWriter replay)
     {
-        char move;
-        boolean moveRejected;
-
-        // Ask for a move until a valid move is submitted by the given player.
-        do
+        Match match = new Match(model, view, replay);
+        match.start();
+        while (!match.isOver())
         {
-            // Request a move from the player.
-            move = view.requestMove();
-
-            // Check the move's validity.
-            moveRejected = !model.isMoveValid(move);
-
-            // Display error message if move is rejected and ask again for a valid move.
-            if(moveRejected)
-                view.displayRejectedMoveMessage(move);
+            match.step(input.requestMove());
         }
-        while(moveRejected);
-        return move;
     }
 }
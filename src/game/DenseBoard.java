@@ -0,0 +1,175 @@
+package game;
+
+import animals.Animals;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.Arrays;
+import java.util.Objects;
+
+/**
+ * This class is a board that holds the type of every cell in a single flat array, row after row.
+ * The board is surrounded by a ring of cells marked as outside the board, so a cell next to any cell
+ * of the board can be read without checking the bounds first.
+ */
+public class DenseBoard extends Board
+{
+    // Reads 8 cells of the array at once, the first cell in the lowest byte.
+    private static final VarHandle EIGHT_CELLS = MethodHandles.byteArrayViewVarHandle(long[].class,
+            ByteOrder.LITTLE_ENDIAN);
+    // The lowest and the highest 7 bits of every byte of a long.
+    private static final long LOW_BYTE_BITS = 0x0101010101010101L;
+    private static final long LOW_7_BITS = 0x7f7f7f7f7f7f7f7fL;
+
+    // Distance in the array between a cell and the cell below it.
+    private final int stride;
+    private final byte[] cells;
+
+    // Creates a board with the given dimensions, where all cells are grass.
+    public DenseBoard(int nrRows, int nrCols)
+    {
+        super(nrRows, nrCols);
+        this.stride = nrCols + 2;
+        this.cells = new byte[(nrRows + 2) * stride];
+
+        // Mark the ring around the board. The cells inside are already grass, as the grass type is 0.
+        for (int j = 0; j < stride; j++)
+        {
+            cells[j] = OFF_BOARD_ID;
+            cells[(nrRows + 1) * stride + j] = OFF_BOARD_ID;
+        }
+        for (int i = 1; i <= nrRows; i++)
+        {
+            cells[i * stride] = OFF_BOARD_ID;
+            cells[i * stride + nrCols + 1] = OFF_BOARD_ID;
+        }
+    }
+
+    @Override
+    // Returns the type of the given cell, or OFF_BOARD_ID if it is outside the board.
+    public byte get(int row, int col)
+    {
+        // Comparing as unsigned also rejects negative coordinates further away than the ring.
+        if (Integer.compareUnsigned(row + 1, getNrRows() + 2) < 0
+                && Integer.compareUnsigned(col + 1, getNrCols() + 2) < 0)
+        {
+            return cells[index(row, col)];
+        }
+        return OFF_BOARD_ID;
+    }
+
+    @Override
+    // Returns the type of the given cell, which must be on the board or on the ring around it.
+    public byte getNear(int row, int col)
+    {
+        return cells[index(row, col)];
+    }
+
+    @Override
+    // Changes the type of the given cell. Throws an IndexOutOfBoundsException if it is outside the board,
+    // so the ring around the board is never overwritten.
+    public void set(int row, int col, byte value)
+    {
+        Objects.checkIndex(row, getNrRows());
+        Objects.checkIndex(col, getNrCols());
+        cells[index(row, col)] = value;
+    }
+
+    @Override
+    // Makes every cell of the rectangle a pen cell.
+    public void placePen(int firstPenRow, int firstPenCol, int nrPenRows, int nrPenCols)
+    {
+        Objects.checkFromIndexSize(firstPenRow, nrPenRows, getNrRows());
+        Objects.checkFromIndexSize(firstPenCol, nrPenCols, getNrCols());
+        for (int i = firstPenRow; i < firstPenRow + nrPenRows; i++)
+        {
+            int start = index(i, firstPenCol);
+            Arrays.fill(cells, start, start + nrPenCols, Animals.PEN_CELL_ID);
+        }
+    }
+
+    @Override
+    // Returns the field found from the pen cells of the board, which may have been set one by one.
+    public PenDistanceField buildPenDistanceField()
+    {
+        return new PenDistanceField(this);
+    }
+
+    @Override
+    // A dense board keeps every cell.
+    public boolean keepsEveryCell()
+    {
+        return true;
+    }
+
+    @Override
+    // Makes every cell of this board the same as the given board, which must be a dense board with the same
+    // dimensions.
+    public void copyFrom(Board other)
+    {
+        checkSameKind(other, DenseBoard.class);
+        System.arraycopy(((DenseBoard) other).cells, 0, cells, 0, cells.length);
+    }
+
+    @Override
+    // Returns a new board with the same dimensions and cells as this one.
+    public Board copy()
+    {
+        DenseBoard copy = new DenseBoard(getNrRows(), getNrCols());
+        copy.copyFrom(this);
+        return copy;
+    }
+
+    @Override
+    // Same as rowMask of a board, with the cells compared 8 at a time.
+    long rowMask(int row, int firstCol, byte cellType)
+    {
+        int nrMaskCols = Math.min(64, getNrCols() - firstCol);
+        int start = index(row, firstCol);
+        long typeBytes = (cellType & 0xffL) * LOW_BYTE_BITS;
+        long mask = 0;
+        int k = 0;
+        for (; k + 8 <= nrMaskCols; k += 8)
+        {
+            // A byte of the difference is zero where the cell has the type. Adding 0x7f to its low 7 bits carries
+            // into the high bit unless they are all zero, so the high bit stays clear only in zero bytes.
+            long difference = (long) EIGHT_CELLS.get(cells, start + k) ^ typeBytes;
+            long zeroBytes = ~(((difference & LOW_7_BITS) + LOW_7_BITS) | difference | LOW_7_BITS);
+            // Gather the high bit of byte n into bit n.
+            mask |= (((zeroBytes >>> 7) * 0x0102040810204080L) >>> 56) << k;
+        }
+        for (; k < nrMaskCols; k++)
+        {
+            mask |= (cells[start + k] == cellType ? 1L : 0L) << k;
+        }
+        return mask;
+    }
+
+    @Override
+    // Writes the type of every cell of the board to the given buffer, row after row.
+    public void writeTo(ByteBuffer buffer)
+    {
+        for (int i = 0; i < getNrRows(); i++)
+        {
+            buffer.put(cells, index(i, 0), getNrCols());
+        }
+    }
+
+    @Override
+    // Reads the type of every cell of the board from the given buffer, as written by writeTo.
+    public void readFrom(ByteBuffer buffer)
+    {
+        for (int i = 0; i < getNrRows(); i++)
+        {
+            buffer.get(cells, index(i, 0), getNrCols());
+        }
+    }
+
+    // Returns the position of the given cell in the flat array.
+    private int index(int row, int col)
+    {
+        return (row + 1) * stride + col + 1;
+    }
+}
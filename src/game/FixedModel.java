@@ -2,7 +2,7 @@ package game;
 
 import util.GameSettings;
 import interfaces.InterfaceModel;
-import animals.Animals;
+import interfaces.InterfaceRandomSource;
 import animals.Sheep;
 
 /**
@@ -16,10 +16,20 @@ public class FixedModel extends Model
 		super(settings);
 	}
 
+	// The constructor loads the settings from the Model class, and draws the random decisions of the sheep
+	// from the given source.
+	public FixedModel(GameSettings settings, InterfaceRandomSource random)
+	{
+		super(settings, random);
+	}
+
 	 @Override
 	 // Used to initialize the fixed setup game.
 	 public void initNewGame(GameSettings settings)
 	 {
+		GameStartedEvent event = new GameStartedEvent();
+		event.begin();
+
 		// Set the settings and the game state and initialize the board.
 		setSettings(settings);
 		initStateOfBoard();
@@ -32,17 +42,13 @@ public class FixedModel extends Model
 		initFixedSheep();
 		for (Sheep sheep : getSheep())
 		{
-		   setCellInfo(sheep.getRow(),sheep.getCol(),sheep.type);
+		   placeSheep(sheep);
 		}
 
 		// Insert pen on specified cells.
-		for (int i = 3; i < 3 + getSettings().getNrPenRows(); i++)
-		{
-			for (int j = 3; j < 3 + getSettings().getNrPenCols(); j++)
-			{
-			   setCellInfo(i,j, Animals.PEN_CELL_ID);
-			}
-		}
+		placePen(3, 3);
+		initPenDistanceField();
+		event.commit(this, false);
 	}
 
 	// Initializes sheep on fixed setup, and inserts them in the sheep list while setting their locations.
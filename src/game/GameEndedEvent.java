@@ -0,0 +1,50 @@
+package game;
+
+import interfaces.InterfaceModel;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * Flight Recorder event of a match that has ended, lasting from its start, with how it ended and its number of turns.
+ */
+@Name("sheepdog.GameEnded")
+@Label("Game Ended")
+@Category("Sheepdog Trials")
+@Description("A game was won or conceded")
+class GameEndedEvent extends Event
+{
+    @Label("Result")
+    String result;
+
+    @Label("Moves")
+    int moveCount;
+
+    @Label("Board Rows")
+    int nrBoardRows;
+
+    @Label("Board Columns")
+    int nrBoardCols;
+
+    @Label("Sheep Left")
+    @Description("Sheep still outside the pen when the game ended")
+    int sheepLeft;
+
+    // Ends the event and commits it with the given state and number of turns of the given model, if it is recorded.
+    void commit(Model model, byte gameState, int moveCount)
+    {
+        end();
+        if (shouldCommit())
+        {
+            result = gameState == InterfaceModel.GAME_WON ? "won" : "conceded";
+            this.moveCount = moveCount;
+            nrBoardRows = model.getSettings().getNrBoardRows();
+            nrBoardCols = model.getSettings().getNrBoardCols();
+            sheepLeft = model.getNrSheepOutsidePen();
+            commit();
+        }
+    }
+}
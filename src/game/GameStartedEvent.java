@@ -0,0 +1,67 @@
+package game;
+
+import util.GameSettings;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * Flight Recorder event of a new game, lasting while its setup is made, with the settings of the game and how its
+ * turns are played. The events of a thread can be matched with its turns, to see which boards the slow turns had.
+ */
+@Name("sheepdog.GameStarted")
+@Label("Game Started")
+@Category("Sheepdog Trials")
+@Description("A new game was set up")
+class GameStartedEvent extends Event
+{
+    @Label("Board Rows")
+    int nrBoardRows;
+
+    @Label("Board Columns")
+    int nrBoardCols;
+
+    @Label("Dogs")
+    int nrDogs;
+
+    @Label("Sheep")
+    int nrSheep;
+
+    @Label("Pen Rows")
+    int nrPenRows;
+
+    @Label("Pen Columns")
+    int nrPenCols;
+
+    @Label("Random Setup")
+    boolean randomSetup;
+
+    @Label("Turn Engine")
+    String turnEngine;
+
+    @Label("Board Storage")
+    String boardStorage;
+
+    // Ends the event and commits it with the settings and the engines of the given model, if it is recorded.
+    void commit(Model model, boolean randomSetup)
+    {
+        end();
+        if (shouldCommit())
+        {
+            GameSettings settings = model.getSettings();
+            nrBoardRows = settings.getNrBoardRows();
+            nrBoardCols = settings.getNrBoardCols();
+            nrDogs = settings.getNrDogs();
+            nrSheep = settings.getNrSheep();
+            nrPenRows = settings.getNrPenRows();
+            nrPenCols = settings.getNrPenCols();
+            this.randomSetup = randomSetup;
+            turnEngine = model.getTurnEngine().name();
+            boardStorage = model.getBoardStorage().name();
+            commit();
+        }
+    }
+}
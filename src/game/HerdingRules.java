@@ -0,0 +1,138 @@
+package game;
+
+import util.Direction;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+
+/**
+ * This class holds the moves a sheep tries, in order, depending on where the dog or its nearest sheep is
+ * relative to it. Where it is is given by the signs of the differences of rows and of columns, which gives
+ * 9 positions, one of them being the cell of the sheep itself. The sheep makes the first move of the list
+ * that leads to a cell free of animals, or stays where it is if there is none.
+ * Rules can be read from text with one line per position, as in the default rules below:
+ * "flee" or "flock", the sign of the row difference, the sign of the column difference and the moves.
+ * Positions that are not listed have no moves.
+ */
+public class HerdingRules
+{
+    private static final int NR_POSITIONS = 9;
+    private static final Direction[] NO_MOVES = new Direction[0];
+
+    // The rules of the original game. Fleeing sheep move away from the dog, and when the dog is diagonal to them
+    // they alternate between the two directions away from it so they do not run in circles.
+    // Flocking sheep move towards their nearest sheep.
+    public static final HerdingRules DEFAULT = parse(String.join("\n",
+            "flee 1 0 UP RIGHT LEFT",
+            "flee -1 0 DOWN LEFT RIGHT",
+            "flee 0 1 LEFT UP DOWN",
+            "flee 0 -1 RIGHT DOWN UP",
+            "flee -1 -1 RIGHT DOWN",
+            "flee -1 1 DOWN LEFT",
+            "flee 1 -1 UP RIGHT",
+            "flee 1 1 LEFT UP",
+            "flock 1 0 DOWN RIGHT LEFT",
+            "flock -1 0 UP LEFT RIGHT",
+            "flock 0 1 RIGHT UP DOWN",
+            "flock 0 -1 LEFT DOWN UP",
+            "flock -1 -1 LEFT UP",
+            "flock -1 1 UP RIGHT",
+            "flock 1 -1 DOWN LEFT",
+            "flock 1 1 RIGHT DOWN"));
+
+    private final Direction[][] fleeMoves;
+    private final Direction[][] flockMoves;
+
+    // Creates rules from the moves of each position, indexed by position(dRow, dCol). A missing or null list
+    // of moves means the sheep stays where it is.
+    public HerdingRules(Direction[][] fleeMoves, Direction[][] flockMoves)
+    {
+        this.fleeMoves = copyMoves(fleeMoves);
+        this.flockMoves = copyMoves(flockMoves);
+    }
+
+    // Reads rules from text in the format described above. Blank lines and lines starting with # are skipped.
+    // Throws an IllegalArgumentException if a line cannot be read.
+    public static HerdingRules parse(String text)
+    {
+        Direction[][] fleeMoves = new Direction[NR_POSITIONS][];
+        Direction[][] flockMoves = new Direction[NR_POSITIONS][];
+        for (String line : text.split("\n"))
+        {
+            String[] words = line.trim().split("\\s+");
+            if (words[0].isEmpty() || words[0].startsWith("#"))
+            {
+                continue;
+            }
+            if (words.length < 3)
+            {
+                throw new IllegalArgumentException("Herding rule needs a behaviour and two signs: " + line);
+            }
+
+            Direction[][] moves;
+            if (words[0].equals("flee"))
+            {
+                moves = fleeMoves;
+            }
+            else if (words[0].equals("flock"))
+            {
+                moves = flockMoves;
+            }
+            else
+            {
+                throw new IllegalArgumentException("Unknown herding behaviour: " + words[0]);
+            }
+
+            int position;
+            ArrayList<Direction> directions = new ArrayList<>();
+            try
+            {
+                position = position(Integer.parseInt(words[1]), Integer.parseInt(words[2]));
+                for (int k = 3; k < words.length; k++)
+                {
+                    directions.add(Direction.valueOf(words[k]));
+                }
+            }
+            catch (IllegalArgumentException e)
+            {
+                throw new IllegalArgumentException("Cannot read herding rule: " + line, e);
+            }
+            moves[position] = directions.toArray(new Direction[0]);
+        }
+        return new HerdingRules(fleeMoves, flockMoves);
+    }
+
+    // Returns the position of a cell relative to a sheep, where dRow and dCol are the differences
+    // of rows and columns from the sheep to the cell. Only their signs matter.
+    public static int position(int dRow, int dCol)
+    {
+        return (Integer.signum(dRow) + 1) * 3 + Integer.signum(dCol) + 1;
+    }
+
+    // Returns the moves of a sheep fleeing from a dog at the given differences of rows and columns from it.
+    // The returned array must not be changed.
+    public Direction[] getFleeMoves(int dRow, int dCol)
+    {
+        return fleeMoves[position(dRow, dCol)];
+    }
+
+    // Returns the moves of a sheep flocking towards a sheep at the given differences of rows and columns from it.
+    // The returned array must not be changed.
+    public Direction[] getFlockMoves(int dRow, int dCol)
+    {
+        return flockMoves[position(dRow, dCol)];
+    }
+
+    // Copies the moves of every position, so the rules cannot be changed from outside.
+    private static Direction[][] copyMoves(Direction[][] moves)
+    {
+        Direction[][] copy = new Direction[NR_POSITIONS][];
+        for (int position = 0; position < NR_POSITIONS; position++)
+        {
+            copy[position] = position < moves.length && moves[position] != null
+                    ? Arrays.copyOf(moves[position], moves[position].length)
+                    : NO_MOVES;
+        }
+        return copy;
+    }
+}
@@ -0,0 +1,154 @@
+package game;
+
+import interfaces.InterfaceModel;
+import interfaces.InterfaceView;
+import replay.ReplayWriter;
+
+import java.io.IOException;
+
+/**
+ * This class plays one game a turn at a time: it is fed the moves of the dogs and returns the state of the game
+ * after them, displaying every step on its view, with only the cells each turn changed. It never waits for input,
+ * so the moves can come from a player at a terminal, a script or a connection, and one thread can hold as many
+ * matches as it needs. When the game ends, a Flight Recorder event records how it ended and after how many turns.
+ */
+public class Match
+{
+    private final Model model;
+    private final InterfaceView view;
+    // Replay every turn is recorded to, or null if the game is not recorded.
+    private ReplayWriter replay;
+    private int moveCount;
+    private final char[] singleMove = new char[1];
+    // Event of the end of the game, which lasts from the creation of the match.
+    private final GameEndedEvent endEvent = new GameEndedEvent();
+
+    // The constructor takes the model of a new game, the view it is displayed on and the replay it is recorded to,
+    // or null if it is not recorded. The model records the cells changed by every turn from then on, so the view
+    // is only given those after a turn.
+    public Match(Model model, InterfaceView view, ReplayWriter replay)
+    {
+        this.model = model;
+        this.view = view;
+        this.replay = replay;
+        model.setRecordingTurnChanges(true);
+        endEvent.begin();
+    }
+
+    // Displays the state and the board the game starts with.
+    public void start()
+    {
+        view.displayGameState(model.getGameState());
+        view.displayBoard(model);
+    }
+
+    // Plays the given move of the only dog, as step does for the moves of every dog.
+    public byte step(char move)
+    {
+        singleMove[0] = move;
+        return step(singleMove);
+    }
+
+    // Plays a turn with the given moves, one for each dog, and returns the state of the game after it.
+    // If a move is rejected, it is displayed and nothing is played, so the state stays in progress.
+    // Unless the player concedes, the sheep react to the dogs and the cells the turn changed are displayed.
+    public byte step(char[] moves)
+    {
+        if (isOver())
+        {
+            throw new IllegalStateException("the game has ended");
+        }
+        if (moves.length != model.getDogs().size())
+        {
+            throw new IllegalArgumentException(moves.length + " moves for " + model.getDogs().size() + " dogs");
+        }
+        for (int dogNumber = 0; dogNumber < moves.length; dogNumber++)
+        {
+            if (!model.isMoveValid(dogNumber, moves[dogNumber]))
+            {
+                view.displayRejectedMoveMessage(moves[dogNumber]);
+                return model.getGameState();
+            }
+        }
+        for (char move : moves)
+        {
+            view.displayChosenMove(move);
+        }
+
+        // Conceding ends the game without moving the sheep.
+        model.makeMoves(moves);
+        if (model.getGameState() == InterfaceModel.GAME_IN_PROGRESS)
+        {
+            model.sheepBehaviour();
+            view.displayDelta(model, model.getTurnChanges(), model.getNrTurnChanges());
+            moveCount += 1;
+            recordMove(moves[0]);
+        }
+        view.displayMoveCount(moveCount);
+
+        // As the game has ended, display the outcome.
+        byte gameState = model.getGameState();
+        if (gameState != InterfaceModel.GAME_IN_PROGRESS)
+        {
+            view.displayGameState(gameState);
+            closeReplay(gameState);
+            endEvent.commit(model, gameState, moveCount);
+        }
+        return gameState;
+    }
+
+    // Returns true once the game was won or conceded.
+    public boolean isOver()
+    {
+        return model.getGameState() != InterfaceModel.GAME_IN_PROGRESS;
+    }
+
+    // Getter of the number of turns played so far.
+    public int getMoveCount()
+    {
+        return moveCount;
+    }
+
+    // Getter of the model of the game.
+    public Model getModel()
+    {
+        return model;
+    }
+
+    // Records a turn to the replay, unless there is none. If it cannot be written, the error is displayed on the view
+    // and the game goes on without being recorded.
+    private void recordMove(char move)
+    {
+        if (replay == null)
+        {
+            return;
+        }
+        try
+        {
+            replay.recordMove(move, model);
+        }
+        catch (IOException e)
+        {
+            view.displayError("The game is no longer recorded: " + e.getMessage());
+            closeReplay(model.getGameState());
+        }
+    }
+
+    // Records the end of the game and closes the replay, unless there is none. An error is displayed on the view.
+    private void closeReplay(byte gameState)
+    {
+        if (replay == null)
+        {
+            return;
+        }
+        try (ReplayWriter closing = replay)
+        {
+            closing.finish(gameState);
+        }
+        catch (IOException e)
+        {
+            view.displayError("The end of the game cannot be recorded: " + e.getMessage());
+        }
+        replay = null;
+    }
+}
@@ -1,15 +1,20 @@
 package game;
 
+import util.Direction;
 import util.GameSettings;
-import util.Util;
+import util.SplitMix64;
+import util.Zobrist;
 import interfaces.InterfaceModel;
+import interfaces.InterfaceRandomSource;
 import animals.Animals;
 import animals.Sheep;
 import animals.Dog;
 
+import java.nio.ByteBuffer;
 import java.util.ArrayList;
-import java.util.Objects;
-import java.util.concurrent.ThreadLocalRandom;
+import java.util.Arrays;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
 
 /**
  * This class is used to represent the state of the game.
@@ -17,34 +22,131 @@ import java.util.concurrent.ThreadLocalRandom;
 
 public class Model implements InterfaceModel
 {
+    // A parallel turn gives each band at least this many sheep, and is moved as a double-buffered turn
+    // if there are not enough sheep for two bands, as every band copies the whole board.
+    private static final int MIN_SHEEP_PER_BAND = 2048;
+
     private GameSettings settings;
-    private byte[][] stateOfBoard;
+    private Board stateOfBoard;
+    // Positions of all sheep on the board, kept up to date with every change of the board.
+    private SpatialIndex sheepIndex;
+    // Positions of all dogs on the board, so a sheep finds the nearest dog without looking at every dog.
+    private SpatialIndex dogIndex;
+    // Nearest pen cell of every cell, built once the pen is placed.
+    private PenDistanceField penDistanceField;
+    // The sheep standing on each cell, indexed by row * nrBoardCols + col, or null if there is none.
+    // A sparse board keeps instead the position in placedSheep of the sheep of every cell holding one.
+    private Sheep[] sheepOnCell;
+    private CellMap placedSheepOnCell;
+    private ArrayList<Sheep> placedSheep;
+    // Number of cells holding a sheep, which are the sheep not yet in the pen.
+    private int nrSheepOutsidePen;
+    // Number of sheep moved on the board since the current turn of the sheep started.
+    private int nrSheepMovedInTurn;
+    // How the sheep are moved during a turn, and how the board of the next game keeps its cells.
+    private TurnEngine turnEngine = TurnEngine.IN_PLACE;
+    private BoardStorage boardStorage = BoardStorage.DENSE;
+    // Cells of the sheep in row-major order at the start of a turn, in the order they take their turn.
+    private long[] frontCells = new long[0];
+    private int nrFrontCells;
+    // Cells the sheep moved to during a double-buffered turn, including the pen cells some of them entered.
+    private long[] backCells = new long[0];
+    // True while the front buffer matches the board, which a double-buffered turn keeps true.
+    private boolean frontCellsValid;
+    // True during a double-buffered turn, and the position in the front buffer of the sheep taking its turn.
+    private boolean bufferedTurnInProgress;
+    private int currentSheep;
+    // Pool running the bands of a parallel turn, and the models moving the sheep of each band on their own board.
+    private ForkJoinPool parallelPool = ForkJoinPool.commonPool();
+    private Model[] bandModels;
+    // Cells the sheep of a parallel turn moved to in their band, and the squared distance at which each looked
+    // for its nearest sheep there, or -1 if it did not look for one.
+    private long[] bandCells = new long[0];
+    private long[] bandNearestDistances = new long[0];
+    // Cells changed by earlier sheep of a parallel turn that the band of the current sheep may not have seen.
+    private SpatialIndex changedCells;
+    private boolean[] isChangedCell;
+    private int[] changedCellList = new int[0];
+    // Squared distance to the nearest sheep found by the last sheep that looked for one, or -1 if it did not look.
+    private long nearestSheepDistance;
+    // Seed of the random decisions of the current turn, and the source of the decisions of the sheep taking its turn,
+    // which is seeded from the turn and the cell of the sheep so it does not depend on the sheep moved before it.
+    private long turnSeed;
+    private final SplitMix64 sheepRandom;
+    // Moves tried by fleeing and flocking sheep.
+    private HerdingRules herdingRules = HerdingRules.DEFAULT;
+    // Zobrist hash of the dimensions and the cells of the board, which include the position of the dog. It is updated
+    // with every change of a cell, and recently moved sheep hash as sheep, so the hash is the same whichever engine
+    // moved them.
+    private long stateHash;
+    // Changes of the cells made by the last turn, from the first move of its dogs to the end of the moves of its
+    // sheep, as pairs of the index of the cell, row * nrBoardCols + col, and its new type, in the order they were
+    // made. Null if the changes are not recorded. A new turn empties them once the last turn has ended.
+    private int[] turnChanges;
+    private int nrTurnChanges;
+    private boolean turnEnded = true;
     private byte stateOfGame;
-    private Dog dog;
+    // The dogs of the game, moved by a command each per turn. The first dog is the dog of getDog.
+    private ArrayList<Dog> dogs;
     private ArrayList<Sheep> sheep;
+    // Source of every random decision of the game.
+    private final InterfaceRandomSource random;
 
     // The constructor loads default settings, creates a new dog and initializes the sheep.
-    public Model(GameSettings settings)
+    // All random decisions of the game are drawn from the given source.
+    public Model(GameSettings settings, InterfaceRandomSource random)
     {
     	this.settings = settings;
+    	this.random = random;
+        this.sheepRandom = new SplitMix64(random.nextLong());
+        this.dogs = new ArrayList<>();
     	setDog(new Dog(0));
         initSheep();
     }
 
+    // The constructor loads default settings and draws random decisions from a source with an unpredictable seed.
+    public Model(GameSettings settings)
+    {
+        this(settings, new SplitMix64());
+    }
+
+    // Creates a model that moves one band of the sheep of a parallel turn of the given model, on its own board.
+    // It shares the dog and the pen of the given model, and only takes its board and sheep at the start of each turn.
+    private Model(Model model)
+    {
+        this.settings = model.settings;
+        this.random = model.random;
+        this.sheepRandom = new SplitMix64(0);
+        this.turnEngine = TurnEngine.DOUBLE_BUFFERED;
+        // Parallel turns are only moved on boards keeping every cell, whose copy each band moves its sheep on.
+        this.stateOfBoard = model.stateOfBoard.copy();
+        this.sheepIndex = new SpatialIndex(model.stateOfBoard.getNrRows(), model.stateOfBoard.getNrCols());
+    }
+
     @Override
     // Called when the state of the board is initialized, where all cells are grass.
     public void initStateOfBoard()
     {
     	int i = getSettings().getNrBoardRows();
     	int j = getSettings().getNrBoardCols();
-    	stateOfBoard = new byte[i][j];
-    	for (int n = 0; n < i ; n++)
+        boolean sparse = boardStorage == BoardStorage.SPARSE;
+    	stateOfBoard = sparse ? new SparseBoard(i, j) : new DenseBoard(i, j);
+        sheepIndex = new SpatialIndex(i, j, sparse);
+        dogIndex = new SpatialIndex(i, j, sparse);
+        penDistanceField = new PenDistanceField();
+        sheepOnCell = sparse ? null : new Sheep[i * j];
+        placedSheepOnCell = sparse ? new CellMap(16) : null;
+        placedSheep = sparse ? new ArrayList<>() : null;
+        nrSheepOutsidePen = 0;
+        stateHash = Zobrist.boardKey(i, j);
+        bandModels = null;
+        changedCells = null;
+        if (turnChanges != null)
         {
-            for (int k = 0; k < j; k++)
-            {
-                this.stateOfBoard[n][k] = Animals.GRASS_CELL_ID;
-            }
+            // The index of every cell must fit in the changes.
+            Math.toIntExact((long) i * j);
         }
+        clearTurnChanges();
     }
 
     @Override
@@ -60,6 +162,32 @@ public class Model implements InterfaceModel
     {
     	setSettings(settings);
         initStateOfBoard();
+        initPenDistanceField();
+    }
+
+    // Builds the nearest pen cell of every cell of the board. Called once the pen has been placed,
+    // as the pen does not move during a game.
+    public void initPenDistanceField()
+    {
+        penDistanceField = stateOfBoard.buildPenDistanceField();
+    }
+
+    // Makes the rectangle of the size of the pen of the settings with the given first row and column the pen.
+    // Its cells must be grass. The board keeps the pen in its own way, and only the hash is updated here.
+    public void placePen(int firstPenRow, int firstPenCol)
+    {
+        int nrPenRows = this.settings.getNrPenRows();
+        int nrPenCols = this.settings.getNrPenCols();
+        stateOfBoard.placePen(firstPenRow, firstPenCol, nrPenRows, nrPenCols);
+        for (int i = firstPenRow; i < firstPenRow + nrPenRows; i++)
+        {
+            for (int j = firstPenCol; j < firstPenCol + nrPenCols; j++)
+            {
+                // Grass has the key 0, so the key of the pen is all there is to add.
+                stateHash ^= cellKey(i, j, Animals.PEN_CELL_ID);
+            }
+        }
+        frontCellsValid = false;
     }
 
     @Override
@@ -68,236 +196,488 @@ public class Model implements InterfaceModel
     // or if the player wants to concede.
     public boolean isMoveValid(char move)
     {
-        if (move == 'w')
+        return isMoveValid(0, move);
+    }
+
+    @Override
+    // Returns if the given move of the dog of the given number, its position in the dog list, is valid.
+    public boolean isMoveValid(int dogNumber, char move)
+    {
+        if (move == 'o')
         {
-            return dog.getRow() - 1 >= 0 &&
-                    this.stateOfBoard[dog.getRow() - 1][dog.getCol()] == Animals.GRASS_CELL_ID;
+            return true;
         }
-        else if (move == 's')
+        // The ring around the board is never grass, so moves out of the board need no separate check.
+        Dog dog = dogs.get(dogNumber);
+        Direction direction = Direction.fromKey(move);
+        return direction != null && this.stateOfBoard.getNear(dog.getRow() + direction.getRowDelta(),
+                dog.getCol() + direction.getColDelta()) == Animals.GRASS_CELL_ID;
+    }
+
+    @Override
+    // Implements the move passed by the player if it is valid.
+    public void makeMove(char move)
+    {
+        makeMove(0, move);
+    }
+
+    // Implements the given move of the dog of the given number if it is valid, and otherwise leaves the dog where
+    // it is. Conceding ends the game for all dogs.
+    public void makeMove(int dogNumber, char move)
+    {
+        startTurnChanges();
+        if (!isMoveValid(dogNumber, move))
         {
-            return dog.getRow() + 1 < settings.nrBoardRows &&
-                    this.stateOfBoard[dog.getRow() + 1][dog.getCol()] == Animals.GRASS_CELL_ID;
+            return;
         }
-        else if (move == 'a')
+        if (move != 'o')
         {
-            return dog.getCol() - 1 >= 0 &&
-                    this.stateOfBoard[dog.getRow()][dog.getCol() - 1] == Animals.GRASS_CELL_ID;
+            Direction direction = Direction.fromKey(move);
+            if (direction != null)
+            {
+                Dog dog = dogs.get(dogNumber);
+                setDogCell(dog, Animals.GRASS_CELL_ID);
+                dog.move(direction);
+                setDogCell(dog, Animals.DOG_ID);
+            }
         }
-        else if (move == 'd')
+        else
         {
-            return dog.getCol() + 1 < settings.nrBoardCols &&
-                    this.stateOfBoard[dog.getRow()][dog.getCol() + 1] == Animals.GRASS_CELL_ID;
+            this.stateOfGame = InterfaceModel.CONCEDE_MOVE;
         }
-        else return move == 'o';
     }
 
     @Override
-    // Implements the move passed by the player if it is valid.
-    public void makeMove(char move)
+    // Implements the moves of a turn, one for each dog in the order of the dog list. The dogs move one after the other,
+    // so a dog whose move is no longer valid once the dogs before it moved, such as a move onto the cell another dog
+    // just took, stays where it is. If any move is 'o' the game is conceded and no dog moves.
+    public void makeMoves(char[] moves)
     {
-        if (move != 'o')
+        if (moves.length != dogs.size())
         {
-            this.stateOfBoard[dog.getRow()][dog.getCol()] = 0;
-            if (move == 'w')
-            {
-                dog.setDogRow(move);
-                this.stateOfBoard[dog.getRow()][dog.getCol()] = 1;
-            }
-            else if (move == 's')
-            {
-                dog.setDogRow(move);
-                this.stateOfBoard[dog.getRow()][dog.getCol()] = 1;
-            }
-            else if (move == 'a')
-            {
-                dog.setDogColumn(move);
-                this.stateOfBoard[dog.getRow()][dog.getCol()] = 1;
-            }
-            else if (move == 'd')
+            throw new IllegalArgumentException(moves.length + " moves for " + dogs.size() + " dogs");
+        }
+        startTurnChanges();
+        for (char move : moves)
+        {
+            if (move == 'o')
             {
-                dog.setDogColumn(move);
-                this.stateOfBoard[dog.getRow()][dog.getCol()] = 1;
+                this.stateOfGame = InterfaceModel.CONCEDE_MOVE;
+                return;
             }
         }
+        for (int dogNumber = 0; dogNumber < moves.length; dogNumber++)
+        {
+            makeMove(dogNumber, moves[dogNumber]);
+        }
+    }
+
+    // Sets the cell of the given dog to grass or to the dog, and updates the hash of the board and the dog index.
+    private void setDogCell(Dog dog, byte value)
+    {
+        stateHash ^= cellKey(dog.getRow(), dog.getCol(), this.stateOfBoard.getNear(dog.getRow(), dog.getCol()))
+                ^ cellKey(dog.getRow(), dog.getCol(), value);
+        this.stateOfBoard.set(dog.getRow(), dog.getCol(), value);
+        recordChange(dog.getRow(), dog.getCol(), value);
+        if (value == Animals.DOG_ID)
+        {
+            dogIndex.add(dog.getRow(), dog.getCol());
+        }
         else
         {
-            this.stateOfGame = InterfaceModel.CONCEDE_MOVE;
+            dogIndex.remove(dog.getRow(), dog.getCol());
         }
     }
 
     @Override
     // Implements sheep behaviour such as running away from the dog, flocking when the dog is absent
-    // and reluctance to enter pen.
+    // and reluctance to enter pen. Every turn is a Flight Recorder event, with the sheep it moved and penned.
     public void sheepBehaviour()
     {
-        // Check for each sheep outside the pen, if the euclidean distance from the dog is less than 5.
-        double sheepToDogDistance;
-        for (int i = 0; i < this.settings.getNrBoardRows(); i++)
+        long start = TurnMetrics.ENABLED ? System.nanoTime() : 0;
+        TurnProcessedEvent event = new TurnProcessedEvent();
+        event.begin();
+        int nrSheepOutsideBefore = nrSheepOutsidePen;
+        nrSheepMovedInTurn = 0;
+        turnSeed = random.nextLong();
+        if (turnEngine == TurnEngine.PARALLEL)
+        {
+            parallelTurn();
+        }
+        else if (turnEngine == TurnEngine.DOUBLE_BUFFERED)
+        {
+            doubleBufferedTurn();
+        }
+        else
+        {
+            inPlaceTurn();
+        }
+
+        // Checks if all the sheep are now in the pen to set the state of the game accordingly.
+        if (areAllSheepInPen())
+        {
+            setGameState(InterfaceModel.GAME_WON);
+        }
+        turnEnded = true;
+        if (TurnMetrics.ENABLED)
+        {
+            TurnMetrics.recordTurn(System.nanoTime() - start);
+        }
+        event.commit(this, nrSheepMovedInTurn, nrSheepOutsideBefore - nrSheepOutsidePen);
+    }
+
+    // Moves every sheep once, marking the moved sheep with the updated sheep ID until all sheep have moved.
+    private void inPlaceTurn()
+    {
+        // Take the cells of all sheep outside the pen in row-major order, which is the order they move in.
+        // Each sheep moves once, as it is only visited at the cell it held when the turn started.
+        loadFrontCells();
+        for (int k = 0; k < nrFrontCells; k++)
         {
-            for (int j = 0; j < this.settings.getNrBoardCols(); j++)
+            int i = Board.rowOf(frontCells[k]);
+            int j = Board.colOf(frontCells[k]);
+            if (this.stateOfBoard.getNear(i, j) == Animals.SHEEP_ID)
             {
-                if (this.stateOfBoard[i][j] == Animals.SHEEP_ID)
-                {
-                    sheepToDogDistance = Util.euclideanDistance(dog.getRow(), dog.getCol(), i, j);
-                    if (sheepToDogDistance < 5)
-                    {
-                        // Makes the sheep move away from the dog and if sheep is close to the pen,
-                        // it will be reluctant to enter it.
-                        sheepMoveAwayFromDog(i, j);
-                    }
-                    else
-                    {
-                        // Makes the sheep start flocking, by approaching the sheep nearest. If the sheep is close
-                        // to the pen it might just try to get away from it.
-                        sheepFlocking(i,j);
-                    }
-                }
+                startSheepTurn(i, j);
+                moveSheepInTurn(i, j);
             }
         }
 
         // Since the new cells of the sheep are stored with another ID, convert all the updated sheep IDs
-        // to the original sheep ID.
-        for (int i = 0; i < this.settings.getNrBoardRows(); i++)
+        // to the original sheep ID. Only the cells of the sheep still outside the pen are visited.
+        int nrSheepLeft = nrSheepOutsidePen;
+        sheepIndex.copyCells(frontCells);
+        for (int k = 0; k < nrSheepLeft; k++)
         {
-            for (int j = 0; j < this.settings.getNrBoardCols(); j++)
+            int i = Board.rowOf(frontCells[k]);
+            int j = Board.colOf(frontCells[k]);
+            if (this.stateOfBoard.getNear(i, j) == Animals.UPDATED_SHEEP_ID)
             {
-                if (this.stateOfBoard[i][j] == Animals.UPDATED_SHEEP_ID)
-                {
-                    this.stateOfBoard[i][j] = Animals.SHEEP_ID;
-                }
+                this.stateOfBoard.set(i, j, Animals.SHEEP_ID);
             }
         }
+        frontCellsValid = false;
+    }
 
-        // Checks if all the sheep are now in the pen to set the state of the game accordingly.
-        if (areAllSheepInPen())
+    // Moves every sheep once, reading the sheep to move from the front buffer and writing where they went
+    // to the back buffer. A sheep sees the moves of the sheep before it, as they are made on the board,
+    // so a cell is taken by the first sheep in row-major order that moves there.
+    private void doubleBufferedTurn()
+    {
+        // The front buffer is rebuilt only if the board was changed outside a double-buffered turn.
+        if (!frontCellsValid)
         {
-            setGameState(InterfaceModel.GAME_WON);
+            loadFrontCells();
+        }
+        if (backCells.length < nrFrontCells)
+        {
+            backCells = new long[frontCells.length];
         }
-    }
 
-    @Override
-    // Makes the sheep move away from the dog if possible, when the dog is approaching.
-    public void sheepMoveAwayFromDog(int sheepRow, int sheepCol)
-    {
-        // Make the sheep try to get away from the dog if the sheep is not trying to avoid the pen.
-        // Takes into consideration the position of the dog relative to the sheep and move the sheep
-        // to the best available cell next to it that increases the distance from the dog.
-        // The priority of the direction of the sheep's move is clearly indicated, and for the last 4 cases
-        // it is mixed to avoid the sheep making circles.
-        if(!chasedSheepReluctance(sheepRow, sheepCol))
+        bufferedTurnInProgress = true;
+        for (int k = 0; k < nrFrontCells; k++)
         {
-            // Dog is perpendicularly below the sheep.
-            if (dog.getRow() > sheepRow && dog.getCol() == sheepCol)
+            currentSheep = k;
+            backCells[k] = frontCells[k];
+            int i = Board.rowOf(frontCells[k]);
+            int j = Board.colOf(frontCells[k]);
+            if (isSheep(this.stateOfBoard.getNear(i, j)))
             {
-                if (isCellFreeOfAnimals(sheepRow-1, sheepCol))
-                {
-                    moveSheep(sheepRow, sheepCol, "up");
-                }
-                else if (isCellFreeOfAnimals(sheepRow, sheepCol+1))
-                {
-                    moveSheep(sheepRow, sheepCol, "right");
-                }
-                else if (isCellFreeOfAnimals(sheepRow, sheepCol-1))
-                {
-                    moveSheep(sheepRow, sheepCol, "left");
-                }
+                startSheepTurn(i, j);
+                moveSheepInTurn(i, j);
             }
-            // Dog is perpendicularly above the sheep.
-            else if (dog.getRow() < sheepRow && dog.getCol() == sheepCol)
+        }
+        bufferedTurnInProgress = false;
+        swapBuffers();
+    }
+
+    // Moves every sheep once like a double-buffered turn, with the front buffer split into bands of consecutive sheep.
+    // Each band is first moved on a copy of the board taken at the start of the turn, all bands at the same time.
+    // The moves are then made on the board band by band, in the order of the front buffer: a sheep keeps the move
+    // of its band unless one of the cells it looked at has been changed by a sheep its band did not see,
+    // in which case it takes its turn again on the board. This gives the same moves as a double-buffered turn.
+    private void parallelTurn()
+    {
+        int nrBands = Math.min(parallelPool.getParallelism(), nrSheepOutsidePen / MIN_SHEEP_PER_BAND);
+        if (nrBands < 2 || !stateOfBoard.keepsEveryCell())
+        {
+            doubleBufferedTurn();
+            return;
+        }
+        if (!frontCellsValid)
+        {
+            loadFrontCells();
+        }
+        if (backCells.length < nrFrontCells)
+        {
+            backCells = new long[frontCells.length];
+        }
+        if (bandCells.length < nrFrontCells)
+        {
+            bandCells = new long[frontCells.length];
+            bandNearestDistances = new long[frontCells.length];
+        }
+        if (bandModels == null || bandModels.length != nrBands)
+        {
+            bandModels = new Model[nrBands];
+            for (int band = 0; band < nrBands; band++)
             {
-                if (isCellFreeOfAnimals(sheepRow+1, sheepCol))
-                {
-                    moveSheep(sheepRow, sheepCol, "down");
-                }
-                else if (isCellFreeOfAnimals(sheepRow, sheepCol-1))
-                {
-                    moveSheep(sheepRow, sheepCol, "left");
-                }
-                else if (isCellFreeOfAnimals(sheepRow, sheepCol+1))
-                {
-                    moveSheep(sheepRow, sheepCol, "right");
-                }
+                bandModels[band] = new Model(this);
             }
-            // Dog is perpendicularly to the right of the sheep.
-            else if (dog.getRow() == sheepRow && dog.getCol() > sheepCol)
+        }
+        if (changedCells == null)
+        {
+            changedCells = new SpatialIndex(this.settings.getNrBoardRows(), this.settings.getNrBoardCols());
+            isChangedCell = new boolean[this.settings.getNrBoardRows() * this.settings.getNrBoardCols()];
+        }
+
+        // Bands hold the same number of sheep, so they take about the same time.
+        int[] bandStarts = new int[nrBands + 1];
+        for (int band = 0; band <= nrBands; band++)
+        {
+            bandStarts[band] = (int) ((long) nrFrontCells * band / nrBands);
+        }
+        ForkJoinTask<?>[] tasks = new ForkJoinTask<?>[nrBands];
+        for (int band = 0; band < nrBands; band++)
+        {
+            Model bandModel = bandModels[band];
+            int from = bandStarts[band];
+            int to = bandStarts[band + 1];
+            tasks[band] = parallelPool.submit(() -> bandModel.moveBand(this, from, to));
+        }
+        for (ForkJoinTask<?> task : tasks)
+        {
+            task.join();
+        }
+
+        bufferedTurnInProgress = true;
+        for (int band = 0; band < nrBands; band++)
+        {
+            for (int k = bandStarts[band]; k < bandStarts[band + 1]; k++)
             {
-                if (isCellFreeOfAnimals(sheepRow, sheepCol-1))
+                currentSheep = k;
+                backCells[k] = frontCells[k];
+                int i = Board.rowOf(frontCells[k]);
+                int j = Board.colOf(frontCells[k]);
+                if (!isSheep(this.stateOfBoard.getNear(i, j)))
                 {
-                    moveSheep(sheepRow, sheepCol, "left");
+                    continue;
                 }
-                else if (isCellFreeOfAnimals(sheepRow-1, sheepCol))
+                if (sawChangedCell(i, j, bandNearestDistances[k]))
                 {
-                    moveSheep(sheepRow, sheepCol, "up");
+                    startSheepTurn(i, j);
+                    moveSheepInTurn(i, j);
+                    // The band saw this sheep move elsewhere, so the later sheep of the band saw a different board.
+                    if (backCells[k] != bandCells[k])
+                    {
+                        markChangedCell(frontCells[k]);
+                        markChangedCell(bandCells[k]);
+                        markChangedCell(backCells[k]);
+                    }
                 }
-                else if (isCellFreeOfAnimals(sheepRow+1, sheepCol))
+                else if (bandCells[k] != frontCells[k])
                 {
-                    moveSheep(sheepRow, sheepCol, "down");
+                    moveSheepTo(i, j, Board.rowOf(bandCells[k]), Board.colOf(bandCells[k]));
                 }
             }
-            // Dog is perpendicularly to the left of the sheep.
-            else if (dog.getRow() == sheepRow && dog.getCol() < sheepCol)
+
+            // The later bands did not see any of the moves of this band.
+            for (int k = bandStarts[band]; k < bandStarts[band + 1]; k++)
             {
-                if (isCellFreeOfAnimals(sheepRow, sheepCol+1))
-                {
-                    moveSheep(sheepRow, sheepCol, "right");
-                }
-                else if (isCellFreeOfAnimals(sheepRow+1, sheepCol))
-                {
-                    moveSheep(sheepRow, sheepCol, "down");
-                }
-                else if (isCellFreeOfAnimals(sheepRow-1, sheepCol))
+                if (backCells[k] != frontCells[k])
                 {
-                    moveSheep(sheepRow, sheepCol, "up");
+                    markChangedCell(frontCells[k]);
+                    markChangedCell(backCells[k]);
                 }
             }
-            // Dog is above and to the left of the sheep.
-            else if (dog.getRow() < sheepRow && dog.getCol() < sheepCol)
+        }
+        bufferedTurnInProgress = false;
+        clearChangedCells();
+        swapBuffers();
+    }
+
+    // Moves the sheep of the front buffer of the given model from position from (inclusive) to position to (exclusive)
+    // on a copy of the board of the model, as the first step of a parallel turn. Records in the model the cell
+    // each sheep moved to and the distance at which it looked for its nearest sheep.
+    private void moveBand(Model model, int from, int to)
+    {
+        this.stateOfBoard.copyFrom(model.stateOfBoard);
+        this.stateHash = model.stateHash;
+        this.sheepIndex.copyFrom(model.sheepIndex);
+        this.nrSheepOutsidePen = model.nrSheepOutsidePen;
+        // The dogs do not move during the turn, and searching an index with every bucket changes nothing in it,
+        // so the bands share them.
+        this.dogs = model.dogs;
+        this.dogIndex = model.dogIndex;
+        this.penDistanceField = model.penDistanceField;
+        this.turnSeed = model.turnSeed;
+        this.herdingRules = model.herdingRules;
+        this.backCells = model.bandCells;
+
+        bufferedTurnInProgress = true;
+        for (int k = from; k < to; k++)
+        {
+            currentSheep = k;
+            backCells[k] = model.frontCells[k];
+            int i = Board.rowOf(model.frontCells[k]);
+            int j = Board.colOf(model.frontCells[k]);
+            startSheepTurn(i, j);
+            if (isSheep(this.stateOfBoard.getNear(i, j)))
             {
-                if (isCellFreeOfAnimals(sheepRow, sheepCol+1))
-                {
-                    moveSheep(sheepRow, sheepCol, "right");
-                }
-                else if (isCellFreeOfAnimals(sheepRow+1, sheepCol))
-                {
-                    moveSheep(sheepRow, sheepCol, "down");
-                }
+                moveSheepInTurn(i, j);
             }
-            // Dog is above and to the right of the sheep.
-            else if (dog.getRow() < sheepRow && dog.getCol() > sheepCol)
+            model.bandNearestDistances[k] = nearestSheepDistance;
+        }
+        bufferedTurnInProgress = false;
+    }
+
+    // Returns true if the sheep of the given cell may have decided differently on the board than in its band,
+    // because a changed cell is one of the cells next to it that it probes, or is as near as the nearest sheep it found.
+    private boolean sawChangedCell(int i, int j, long nearestDistance)
+    {
+        if (changedCells.size() == 0)
+        {
+            return false;
+        }
+        int nrBoardCols = this.settings.getNrBoardCols();
+        int cell = i * nrBoardCols + j;
+        if (isChangedCell[cell] ||
+                (i > 0 && isChangedCell[cell - nrBoardCols]) ||
+                (i < this.settings.getNrBoardRows() - 1 && isChangedCell[cell + nrBoardCols]) ||
+                (j > 0 && isChangedCell[cell - 1]) ||
+                (j < nrBoardCols - 1 && isChangedCell[cell + 1]))
+        {
+            return true;
+        }
+        // A sheep that found no other sheep would find any sheep added since.
+        return nearestDistance == Long.MAX_VALUE ||
+                (nearestDistance >= 0 && changedCells.anyWithin(i, j, nearestDistance));
+    }
+
+    // Adds the given cell to the cells changed during the parallel turn.
+    private void markChangedCell(long changedCell)
+    {
+        int cell = Board.rowOf(changedCell) * this.settings.getNrBoardCols() + Board.colOf(changedCell);
+        if (!isChangedCell[cell])
+        {
+            isChangedCell[cell] = true;
+            changedCells.add(Board.rowOf(changedCell), Board.colOf(changedCell));
+            if (changedCellList.length == changedCells.size() - 1)
             {
-                if (isCellFreeOfAnimals(sheepRow+1, sheepCol))
-                {
-                    moveSheep(sheepRow, sheepCol, "down");
-                }
-                else if (isCellFreeOfAnimals(sheepRow, sheepCol-1))
-                {
-                    moveSheep(sheepRow, sheepCol, "left");
-                }
+                changedCellList = Arrays.copyOf(changedCellList, Math.max(16, changedCellList.length * 2));
             }
-            // Dog is below and to the left of the sheep.
-            else if (dog.getRow() > sheepRow && dog.getCol() < sheepCol)
+            changedCellList[changedCells.size() - 1] = cell;
+        }
+    }
+
+    // Empties the cells changed during the parallel turn, visiting only those cells.
+    private void clearChangedCells()
+    {
+        for (int k = 0; k < changedCells.size(); k++)
+        {
+            isChangedCell[changedCellList[k]] = false;
+        }
+        changedCells.clear();
+    }
+
+    // Makes the back buffer the front buffer of the next turn, dropping the sheep that entered the pen
+    // and sorting the rest into row-major order.
+    private void swapBuffers()
+    {
+        // Sheep only move one cell, so the back buffer is nearly sorted already.
+        int nrBackCells = 0;
+        for (int k = 0; k < nrFrontCells; k++)
+        {
+            if (this.stateOfBoard.getNear(Board.rowOf(backCells[k]), Board.colOf(backCells[k]))
+                    != Animals.PEN_CELL_ID)
             {
-                if (isCellFreeOfAnimals(sheepRow-1, sheepCol))
-                {
-                    moveSheep(sheepRow, sheepCol, "up");
-                }
-                else if (isCellFreeOfAnimals(sheepRow, sheepCol+1))
-                {
-                    moveSheep(sheepRow, sheepCol, "right");
-                }
+                backCells[nrBackCells++] = backCells[k];
             }
-            // Dog is below and to the right of the sheep.
-            else if (dog.getRow() > sheepRow && dog.getCol() > sheepCol)
+        }
+        Arrays.sort(backCells, 0, nrBackCells);
+
+        long[] swap = frontCells;
+        frontCells = backCells;
+        backCells = swap;
+        nrFrontCells = nrBackCells;
+        frontCellsValid = true;
+    }
+
+    // Copies the cells of all sheep outside the pen to the front buffer in row-major order.
+    private void loadFrontCells()
+    {
+        if (TurnMetrics.ENABLED)
+        {
+            TurnMetrics.BOARD_SCANS.increment();
+        }
+        nrFrontCells = nrSheepOutsidePen;
+        if (frontCells.length < nrFrontCells)
+        {
+            frontCells = new long[nrFrontCells];
+        }
+        sheepIndex.copyCells(frontCells);
+        Arrays.sort(frontCells, 0, nrFrontCells);
+        frontCellsValid = true;
+    }
+
+    // Seeds the random decisions of the sheep of the given cell for the current turn. The seed is taken from
+    // the index of the cell, row * nrBoardCols + col.
+    private void startSheepTurn(int row, int col)
+    {
+        sheepRandom.setState(turnSeed ^ SplitMix64.mix64((long) row * this.settings.getNrBoardCols() + col));
+        nearestSheepDistance = -1;
+    }
+
+    // Makes the sheep of the given cell take its turn, depending on the distance between the sheep and the nearest dog.
+    private void moveSheepInTurn(int i, int j)
+    {
+        // Check if the euclidean distance from the nearest dog is less than 5.
+        // Squared distances are compared, which gives the same result without the square root.
+        long dogCell = dogIndex.nearestWithin(i, j, 24);
+        if (dogCell != -1)
+        {
+            // Makes the sheep move away from the dog and if sheep is close to the pen,
+            // it will be reluctant to enter it.
+            moveAwayFromDog(i, j, dogCell);
+        }
+        else
+        {
+            // Makes the sheep start flocking, by approaching the sheep nearest. If the sheep is close
+            // to the pen it might just try to get away from it.
+            sheepFlocking(i,j);
+        }
+    }
+
+    @Override
+    // Makes the sheep move away from the nearest dog if possible, when the dog is approaching.
+    public void sheepMoveAwayFromDog(int sheepRow, int sheepCol)
+    {
+        long dogCell = dogIndex.nearest(sheepRow, sheepCol);
+        if (dogCell != -1)
+        {
+            moveAwayFromDog(sheepRow, sheepCol, dogCell);
+        }
+    }
+
+    // Makes the sheep move away from the dog of the given cell if possible.
+    private void moveAwayFromDog(int sheepRow, int sheepCol, long dogCell)
+    {
+        // Make the sheep try to get away from the dog if the sheep is not trying to avoid the pen.
+        // Takes into consideration the position of the dog relative to the sheep and move the sheep
+        // to the best available cell next to it that increases the distance from the dog.
+        // The moves tried for each position of the dog, in order of priority, are given by the herding rules.
+        if(!chasedSheepReluctance(sheepRow, sheepCol))
+        {
+            if (TurnMetrics.ENABLED)
             {
-                if (isCellFreeOfAnimals(sheepRow, sheepCol-1))
-                {
-                    moveSheep(sheepRow, sheepCol, "left");
-                }
-                else if (isCellFreeOfAnimals(sheepRow-1, sheepCol))
-                {
-                    moveSheep(sheepRow, sheepCol, "up");
-                }
+                TurnMetrics.FLEE_DECISIONS.increment();
             }
+            moveToFirstFreeCell(sheepRow, sheepCol, herdingRules.getFleeMoves(Board.rowOf(dogCell) - sheepRow,
+                    Board.colOf(dogCell) - sheepCol));
+        }
+        else if (TurnMetrics.ENABLED)
+        {
+            TurnMetrics.RELUCTANCE_DECISIONS.increment();
         }
     }
 
@@ -309,33 +689,28 @@ public class Model implements InterfaceModel
         // avoid the pen(when it is very close to it).
         // Takes into consideration the position of the nearest sheep relative to the sheep and move the sheep
         // to the best available cell next to it that decreases the distance from the nearest sheep.
-        // The priority of the direction of the sheep's move is clearly indicated.
+        // The moves tried for each position of the nearest sheep, in order of priority, are given by the herding rules.
         if(!freeSheepReluctance(sheepRow, sheepCol))
         {
-            double sheepToSheepDistance;
+            if (TurnMetrics.ENABLED)
+            {
+                TurnMetrics.FLOCK_DECISIONS.increment();
+            }
             int nearestSheepRow = -1;
             int nearestSheepCol = -1;
-            // Defined to a huge number to be easily compared the first instance.
-            double smallestSheepToSheepDistance = 1000000;
 
-            // Searches for the nearest sheep on the board and stores its row and column.
-            for (int i = 0; i < this.settings.getNrBoardRows(); i++)
+            // Searches for the nearest sheep on the board, including recently moved sheep, and stores its row and column.
+            long nearestSheepCell = sheepIndex.nearest(sheepRow, sheepCol);
+            if (nearestSheepCell != -1)
             {
-                for (int j = 0; j < this.settings.getNrBoardCols(); j++)
-                {
-                    // Checks if the cell investigated is either a sheep cell or a recently moved sheep cell.
-                    if (this.stateOfBoard[i][j] == Animals.SHEEP_ID ||
-                            this.stateOfBoard[i][j] == Animals.UPDATED_SHEEP_ID)
-                    {
-                        sheepToSheepDistance = Util.euclideanDistance(sheepRow, sheepCol, i, j);
-                        if (sheepToSheepDistance < smallestSheepToSheepDistance && sheepToSheepDistance != 0)
-                        {
-                            nearestSheepRow = i;
-                            nearestSheepCol = j;
-                            smallestSheepToSheepDistance = sheepToSheepDistance;
-                        }
-                    }
-                }
+                nearestSheepRow = Board.rowOf(nearestSheepCell);
+                nearestSheepCol = Board.colOf(nearestSheepCell);
+                nearestSheepDistance = (long) (nearestSheepRow - sheepRow) * (nearestSheepRow - sheepRow)
+                        + (long) (nearestSheepCol - sheepCol) * (nearestSheepCol - sheepCol);
+            }
+            else
+            {
+                nearestSheepDistance = Long.MAX_VALUE;
             }
             // In the case the sheep is the last one outside the pen the nearest sheep
             // row will remain -1 as initialized.
@@ -343,122 +718,34 @@ public class Model implements InterfaceModel
             // so as not to remain at the same cell. This will create a random motion of the last sheep.
             if (nearestSheepRow == -1)
             {
-                nearestSheepRow = ThreadLocalRandom.current().nextInt(0, getSettings().getNrBoardRows());
-                nearestSheepCol = ThreadLocalRandom.current().nextInt(0, getSettings().getNrBoardRows());
-            }
-            // The nearest sheep is perpendicularly below the sheep.
-            if (nearestSheepRow > sheepRow && nearestSheepCol == sheepCol)
-            {
-                if (isCellFreeOfAnimals(sheepRow + 1, sheepCol))
-                {
-                    moveSheep(sheepRow, sheepCol, "down");
-                }
-                else if (isCellFreeOfAnimals(sheepRow, sheepCol + 1))
-                {
-                    moveSheep(sheepRow, sheepCol, "right");
-                }
-                else if (isCellFreeOfAnimals(sheepRow, sheepCol - 1))
-                {
-                    moveSheep(sheepRow, sheepCol, "left");
-                }
-            }
-            // The nearest sheep is perpendicularly above the sheep.
-            else if (nearestSheepRow < sheepRow && nearestSheepCol == sheepCol)
-            {
-                if (isCellFreeOfAnimals(sheepRow - 1, sheepCol))
-                {
-                    moveSheep(sheepRow, sheepCol, "up");
-                }
-                else if (isCellFreeOfAnimals(sheepRow, sheepCol - 1))
-                {
-                    moveSheep(sheepRow, sheepCol, "left");
-                }
-                else if (isCellFreeOfAnimals(sheepRow, sheepCol + 1))
-                {
-                    moveSheep(sheepRow, sheepCol, "right");
-                }
-            }
-            // The nearest sheep is perpendicularly to the right of the sheep.
-            else if (nearestSheepRow == sheepRow && nearestSheepCol > sheepCol)
-            {
-                if (isCellFreeOfAnimals(sheepRow, sheepCol + 1))
-                {
-                    moveSheep(sheepRow, sheepCol, "right");
-                }
-                else if (isCellFreeOfAnimals(sheepRow - 1, sheepCol))
-                {
-                    moveSheep(sheepRow, sheepCol, "up");
-                }
-                else if (isCellFreeOfAnimals(sheepRow + 1, sheepCol))
-                {
-                    moveSheep(sheepRow, sheepCol, "down");
-                }
+                nearestSheepRow = sheepRandom.nextInt(0, getSettings().getNrBoardRows());
+                nearestSheepCol = sheepRandom.nextInt(0, getSettings().getNrBoardRows());
             }
-            // The nearest sheep is perpendicularly to the left of the sheep.
-            else if (nearestSheepRow == sheepRow && nearestSheepCol < sheepCol)
-            {
-                if (isCellFreeOfAnimals(sheepRow, sheepCol - 1))
-                {
-                    moveSheep(sheepRow, sheepCol, "left");
-                }
-                else if (isCellFreeOfAnimals(sheepRow + 1, sheepCol))
-                {
-                    moveSheep(sheepRow, sheepCol, "down");
-                }
-                else if (isCellFreeOfAnimals(sheepRow - 1, sheepCol))
-                {
-                    moveSheep(sheepRow, sheepCol, "up");
-                }
-            }
-            // The nearest sheep is above and to the left of the sheep.
-            else if (nearestSheepRow < sheepRow && nearestSheepCol < sheepCol)
-            {
-                if (isCellFreeOfAnimals(sheepRow, sheepCol - 1))
-                {
-                    moveSheep(sheepRow, sheepCol, "left");
-                }
-                else if (isCellFreeOfAnimals(sheepRow - 1, sheepCol))
-                {
-                    moveSheep(sheepRow, sheepCol, "up");
-                }
-            }
-            // The nearest sheep is above and to the right of the sheep.
-            else if (nearestSheepRow < sheepRow)
-            {
-                if (isCellFreeOfAnimals(sheepRow - 1, sheepCol))
-                {
-                    moveSheep(sheepRow, sheepCol, "up");
-                }
-                else if (isCellFreeOfAnimals(sheepRow, sheepCol + 1))
-                {
-                    moveSheep(sheepRow, sheepCol, "right");
-                }
-            }
-            // The nearest sheep is below and to the left of the sheep.
-            else if (nearestSheepRow > sheepRow && nearestSheepCol < sheepCol)
-            {
-                if (isCellFreeOfAnimals(sheepRow + 1, sheepCol))
-                {
-                    moveSheep(sheepRow, sheepCol, "down");
-                }
-                else if (isCellFreeOfAnimals(sheepRow, sheepCol - 1))
-                {
-                    moveSheep(sheepRow, sheepCol, "left");
-                }
-            }
-            // The nearest sheep is below and to the right the sheep.
-            else if (nearestSheepRow > sheepRow)
-            {
-                if (isCellFreeOfAnimals(sheepRow, sheepCol + 1))
-                {
-                    moveSheep(sheepRow, sheepCol, "right");
-                }
-                else if (isCellFreeOfAnimals(sheepRow + 1, sheepCol))
-                {
-                    moveSheep(sheepRow, sheepCol, "down");
-                }
+            moveToFirstFreeCell(sheepRow, sheepCol,
+                    herdingRules.getFlockMoves(nearestSheepRow - sheepRow, nearestSheepCol - sheepCol));
+        }
+        else if (TurnMetrics.ENABLED)
+        {
+            TurnMetrics.RELUCTANCE_DECISIONS.increment();
+        }
+    }
+
+    // Moves the sheep of the given cell in the first of the given directions that leads to a cell free of animals.
+    // The sheep stays where it is if there is none.
+    private void moveToFirstFreeCell(int sheepRow, int sheepCol, Direction[] moves)
+    {
+        for (Direction move : moves)
+        {
+            if (isNeighbourFreeOfAnimals(sheepRow + move.getRowDelta(), sheepCol + move.getColDelta()))
+            {
+                moveSheep(sheepRow, sheepCol, move);
+                return;
             }
         }
+        if (TurnMetrics.ENABLED)
+        {
+            TurnMetrics.BLOCKED_MOVES.increment();
+        }
     }
 
     @Override
@@ -469,65 +756,46 @@ public class Model implements InterfaceModel
         boolean isReluctant;
         // The sheep is randomly assigned as reluctant or not at each turn, in order to make the game possible to win.
         // Therefore, sometimes the sheep will avoid the pen and some other times it will enter it.
-        isReluctant = ThreadLocalRandom.current().nextBoolean();
-        int nearestPenCellRow = -1;
-        int nearestPenCellCol = -1;
-        double sheepToPenDistance;
-        // Defined to a huge number to be easily compared the first instance.
-        double smallestSheepToPenDistance = 1000000;
+        isReluctant = sheepRandom.nextBoolean();
 
         // If sheep is reluctant to enter the pen find the nearest pen cell to it and store its row and column.
         if(isReluctant)
         {
-            for (int k = 0; k < this.settings.getNrBoardRows(); k++)
-            {
-                for (int n = 0; n < this.settings.getNrBoardCols(); n++)
-                {
-                    if (this.stateOfBoard[k][n] == Animals.PEN_CELL_ID)
-                    {
-                        sheepToPenDistance = Util.euclideanDistance(sheepRow, sheepCol, k, n);
-                        if (sheepToPenDistance<smallestSheepToPenDistance)
-                        {
-                            nearestPenCellRow = k;
-                            nearestPenCellCol = n;
-                            smallestSheepToPenDistance = sheepToPenDistance;
-                        }
-                    }
-                }
-            }
+            int nearestPenCellRow = penDistanceField.nearestPenRow(sheepRow, sheepCol);
+            int nearestPenCellCol = penDistanceField.nearestPenCol(sheepRow, sheepCol);
 
             // Consider the nearest pen cell position relative to the sheep to make the best available move to
             // avoid the pen. Only consider cases that the nearest pen cell have the same row or column as the sheep.
             if(nearestPenCellCol == sheepCol || nearestPenCellRow == sheepRow)
             {
                 // Be reluctant only if the smallest sheep to pen euclidean distance is less than or equal to 2.
-                if (smallestSheepToPenDistance <= 2)
+                if (penDistanceField.squaredDistance(sheepRow, sheepCol) <= 4)
                 {
                     // The nearest pen cell is to the left or to the right of the sheep.
                     if(nearestPenCellRow == sheepRow)
                     {
-                        if (isCellFreeOfAnimals(sheepRow-1, sheepCol))
+                        if (isNeighbourFreeOfAnimals(sheepRow-1, sheepCol))
                         {
-                            moveSheep(sheepRow, sheepCol, "up");
+                            moveSheep(sheepRow, sheepCol, Direction.UP);
                             return true;
                         }
-                        else if (isCellFreeOfAnimals(sheepRow+1, sheepCol))
+                        else if (isNeighbourFreeOfAnimals(sheepRow+1, sheepCol))
                         {
-                            moveSheep(sheepRow, sheepCol, "down");
+                            moveSheep(sheepRow, sheepCol, Direction.DOWN);
                             return true;
                         }
                         // The nearest pen cell is to the left of the sheep.
-                        else if (isCellFreeOfAnimals(sheepRow, sheepCol+1) &&
+                        else if (isNeighbourFreeOfAnimals(sheepRow, sheepCol+1) &&
                                 nearestPenCellCol < sheepCol)
                         {
-                            moveSheep(sheepRow, sheepCol, "right");
+                            moveSheep(sheepRow, sheepCol, Direction.RIGHT);
                             return true;
                         }
                         // The nearest pen cell is to the right of the sheep.
-                        else if (isCellFreeOfAnimals(sheepRow, sheepCol-1) &&
+                        else if (isNeighbourFreeOfAnimals(sheepRow, sheepCol-1) &&
                                 nearestPenCellCol > sheepCol)
                         {
-                            moveSheep(sheepRow, sheepCol, "left");
+                            moveSheep(sheepRow, sheepCol, Direction.LEFT);
                             return true;
                         }
                     }
@@ -536,14 +804,14 @@ public class Model implements InterfaceModel
                     // and the game easier to win.
                     else
                     {
-                        if (isCellFreeOfAnimals(sheepRow, sheepCol+1))
+                        if (isNeighbourFreeOfAnimals(sheepRow, sheepCol+1))
                         {
-                            moveSheep(sheepRow, sheepCol, "right");
+                            moveSheep(sheepRow, sheepCol, Direction.RIGHT);
                             return true;
                         }
-                        else if (isCellFreeOfAnimals(sheepRow, sheepCol-1))
+                        else if (isNeighbourFreeOfAnimals(sheepRow, sheepCol-1))
                         {
-                            moveSheep(sheepRow, sheepCol, "left");
+                            moveSheep(sheepRow, sheepCol, Direction.LEFT);
                             return true;
                         }
                     }
@@ -560,91 +828,70 @@ public class Model implements InterfaceModel
     public boolean freeSheepReluctance(int sheepRow, int sheepCol)
     {
         // In this case, the sheep since it is not chased, it is always trying to avoid the pen.
-        int nearestPenCellRow = -1;
-        int nearestPenCellCol = -1;
-        double sheepToPenDistance;
-        // Defined to a huge number to be easily compared the first instance.
-        double smallestSheepToPenDistance = 1000000;
-
         // Find the nearest pen cell to it and store its row and column.
-        for (int k = 0; k < this.settings.getNrBoardRows(); k++)
-        {
-            for (int n = 0; n < this.settings.getNrBoardCols(); n++)
-            {
-                if (this.stateOfBoard[k][n] == Animals.PEN_CELL_ID)
-                {
-                    sheepToPenDistance = Util.euclideanDistance(sheepRow, sheepCol, k, n);
-                    if (sheepToPenDistance<smallestSheepToPenDistance)
-                    {
-                        nearestPenCellRow = k;
-                        nearestPenCellCol = n;
-                        smallestSheepToPenDistance = sheepToPenDistance;
-                    }
-                }
-
-            }
-        }
+        int nearestPenCellRow = penDistanceField.nearestPenRow(sheepRow, sheepCol);
+        int nearestPenCellCol = penDistanceField.nearestPenCol(sheepRow, sheepCol);
 
         // Consider the nearest pen cell position relative to the sheep to make the best available move to
         // avoid the pen. Only consider cases that the nearest pen cell have the same row or column as the sheep.
         if(nearestPenCellCol == sheepCol || nearestPenCellRow == sheepRow)
         {
             // Be reluctant only if the smallest sheep to pen euclidean distance is less than or equal to 2.
-            if (smallestSheepToPenDistance <= 2)
+            if (penDistanceField.squaredDistance(sheepRow, sheepCol) <= 4)
             {
                 // The nearest pen cell is to the left or to the right of the sheep.
                 if(nearestPenCellRow == sheepRow)
                 {
-                    if (isCellFreeOfAnimals(sheepRow-1, sheepCol))
+                    if (isNeighbourFreeOfAnimals(sheepRow-1, sheepCol))
                     {
-                        moveSheep(sheepRow, sheepCol, "up");
+                        moveSheep(sheepRow, sheepCol, Direction.UP);
                         return true;
                     }
-                    else if (isCellFreeOfAnimals(sheepRow+1, sheepCol))
+                    else if (isNeighbourFreeOfAnimals(sheepRow+1, sheepCol))
                     {
-                        moveSheep(sheepRow, sheepCol, "down");
+                        moveSheep(sheepRow, sheepCol, Direction.DOWN);
                         return true;
                     }
                     // The nearest pen cell is to the left of the sheep.
-                    else if (isCellFreeOfAnimals(sheepRow, sheepCol+1) &&
+                    else if (isNeighbourFreeOfAnimals(sheepRow, sheepCol+1) &&
                             nearestPenCellCol < sheepCol)
                     {
-                        moveSheep(sheepRow, sheepCol, "right");
+                        moveSheep(sheepRow, sheepCol, Direction.RIGHT);
                         return true;
                     }
                     // The nearest pen cell is to the right of the sheep.
-                    else if (isCellFreeOfAnimals(sheepRow, sheepCol-1) &&
+                    else if (isNeighbourFreeOfAnimals(sheepRow, sheepCol-1) &&
                             nearestPenCellCol > sheepCol)
                     {
-                        moveSheep(sheepRow, sheepCol, "left");
+                        moveSheep(sheepRow, sheepCol, Direction.LEFT);
                         return true;
                     }
                 }
                 // The nearest pen cell is perpendicularly above or below of the sheep.
                 else
                 {
-                    if (isCellFreeOfAnimals(sheepRow, sheepCol+1))
+                    if (isNeighbourFreeOfAnimals(sheepRow, sheepCol+1))
                     {
-                        moveSheep(sheepRow, sheepCol, "right");
+                        moveSheep(sheepRow, sheepCol, Direction.RIGHT);
                         return true;
                     }
-                    else if (isCellFreeOfAnimals(sheepRow, sheepCol-1))
+                    else if (isNeighbourFreeOfAnimals(sheepRow, sheepCol-1))
                     {
-                        moveSheep(sheepRow, sheepCol, "left");
+                        moveSheep(sheepRow, sheepCol, Direction.LEFT);
                         return true;
                     }
                     // The nearest pen cell is perpendicularly below of the sheep.
-                    else if (isCellFreeOfAnimals(sheepRow-1, sheepCol) &&
+                    else if (isNeighbourFreeOfAnimals(sheepRow-1, sheepCol) &&
                             nearestPenCellRow > sheepRow)
                     {
-                        moveSheep(sheepRow, sheepCol, "up");
+                        moveSheep(sheepRow, sheepCol, Direction.UP);
                         return true;
                     }
                     // The nearest pen cell is perpendicularly above of the sheep.
-                    else if (isCellFreeOfAnimals(sheepRow+1, sheepCol) &&
+                    else if (isNeighbourFreeOfAnimals(sheepRow+1, sheepCol) &&
                             nearestPenCellRow < sheepRow)
                     {
-                        moveSheep(sheepRow, sheepCol, "down");
+                        moveSheep(sheepRow, sheepCol, Direction.DOWN);
                         return true;
                     }
                 }
@@ -658,12 +905,22 @@ public class Model implements InterfaceModel
     // or the cell is not outside the range of the board. Otherwise, returns false.
     public boolean isCellFreeOfAnimals(int rowToCheck, int colToCheck)
     {
-        return getCellInfo(rowToCheck, colToCheck) != Animals.UPDATED_SHEEP_ID &&
-                getCellInfo(rowToCheck, colToCheck) != Animals.SHEEP_ID &&
-                // If cell information is -1, means that the coordinates specified
-                // are outside the board of the game.
-                getCellInfo(rowToCheck, colToCheck) != -1 &&
-                getCellInfo(rowToCheck, colToCheck) != Animals.DOG_ID;
+        if (TurnMetrics.ENABLED)
+        {
+            TurnMetrics.CELL_PROBES.increment();
+        }
+        return Board.isFreeOfAnimals(this.stateOfBoard.get(rowToCheck, colToCheck));
+    }
+
+    // Same as isCellFreeOfAnimals, for a cell next to a cell of the board. The ring around the board
+    // reads as outside of it, so the cell needs no bounds check.
+    private boolean isNeighbourFreeOfAnimals(int rowToCheck, int colToCheck)
+    {
+        if (TurnMetrics.ENABLED)
+        {
+            TurnMetrics.CELL_PROBES.increment();
+        }
+        return Board.isFreeOfAnimals(this.stateOfBoard.getNear(rowToCheck, colToCheck));
     }
 
     @Override
@@ -672,110 +929,577 @@ public class Model implements InterfaceModel
     // is not a pen cell, it gives it the updated sheep ID, that will be converted soon to the sheep's ID.
     // The updated sheep ID is given instead of the sheep ID, as after a dog's move, all sheep move, and when iterating
     // over the board to make all sheep move, this prevents a sheep of moving 2 cells in one round.
-    public void moveSheep(int sheepRow, int sheepCol, String direction)
+    public void moveSheep(int sheepRow, int sheepCol, Direction direction)
+    {
+        moveSheepTo(sheepRow, sheepCol, sheepRow + direction.getRowDelta(), sheepCol + direction.getColDelta());
+    }
+
+    // Moves the sheep of the given cell to the given new cell next to it. The sheep, if it was placed with placeSheep,
+    // keeps its position up to date, and is marked as in the pen if the new cell is a pen cell.
+    private void moveSheepTo(int sheepRow, int sheepCol, int newRow, int newCol)
+    {
+        // The models moving the bands of a parallel turn keep no sheep objects.
+        Sheep movingSheep = sheepOn(sheepRow, sheepCol);
+        nrSheepMovedInTurn++;
+        boolean intoPen = this.stateOfBoard.getNear(newRow, newCol) == Animals.PEN_CELL_ID;
+        if (!intoPen)
+        {
+            moveSheepOn(sheepRow, sheepCol, newRow, newCol);
+        }
+        writeCell(sheepRow, sheepCol, Animals.GRASS_CELL_ID);
+        if (!intoPen)
+        {
+            // The buffered engines know which sheep have moved from their buffers, so they need no marker.
+            writeCell(newRow, newCol, turnEngine == TurnEngine.IN_PLACE
+                    ? Animals.UPDATED_SHEEP_ID : Animals.SHEEP_ID);
+        }
+        else if (movingSheep != null)
+        {
+            movingSheep.setInPen(true);
+        }
+        if (bufferedTurnInProgress)
+        {
+            backCells[currentSheep] = Board.cell(newRow, newCol);
+        }
+        if (movingSheep != null)
+        {
+            movingSheep.setPosition(newRow, newCol);
+        }
+    }
+
+    @Override
+    // Returns true if all the sheep are in the pen. Otherwise, returns false.
+    public boolean areAllSheepInPen()
+    {
+        // The number of sheep outside the pen is kept up to date with every change of the board.
+        return nrSheepOutsidePen == 0;
+    }
+
+    // Returns the id of the cell specified.
+    // Returns 0 or 1 or 2 or 3 if the cell type is grass, dog, sheep or pen respectively.
+    // It also returns 4 if a sheep just moved in the specified cell, which later it will be converted to 2 indicating
+    // there is a sheep there.
+    // Moreover, returns -1 if the specified coordinated are outside the board, to avoid any out of index errors.
+    @Override
+    public byte getCellInfo(int row, int column)
+    {
+        return this.stateOfBoard.get(row, column);
+    }
+
+    @Override
+    // It changes the type of the specific cell to the specified value.
+    public void setCellInfo(int i, int j, byte value)
+    {
+        writeCell(i, j, value);
+    }
+
+    // Changes the type of the specific cell and keeps the sheep index and the dog index up to date when a sheep
+    // or a dog enters or leaves it. Recently moved sheep count as sheep.
+    private void writeCell(int row, int col, byte value)
+    {
+        byte oldValue = this.stateOfBoard.getNear(row, col);
+        boolean wasSheep = isSheep(oldValue);
+        boolean isSheep = isSheep(value);
+        this.stateOfBoard.set(row, col, value);
+        stateHash ^= cellKey(row, col, oldValue) ^ cellKey(row, col, value);
+        if (value != oldValue)
+        {
+            recordChange(row, col, value);
+        }
+        if (!bufferedTurnInProgress)
+        {
+            frontCellsValid = false;
+        }
+        if (wasSheep && !isSheep)
+        {
+            sheepIndex.remove(row, col);
+            setSheepOn(row, col, null);
+            nrSheepOutsidePen--;
+        }
+        else if (isSheep && !wasSheep)
+        {
+            sheepIndex.add(row, col);
+            nrSheepOutsidePen++;
+        }
+        if (oldValue == Animals.DOG_ID && value != Animals.DOG_ID)
+        {
+            dogIndex.remove(row, col);
+        }
+        else if (value == Animals.DOG_ID && oldValue != Animals.DOG_ID)
+        {
+            dogIndex.add(row, col);
+        }
+    }
+
+    // Empties the changes of the cells, when the board is replaced by another and no turn led to it.
+    private void clearTurnChanges()
+    {
+        nrTurnChanges = 0;
+        turnEnded = true;
+    }
+
+    // Empties the changes of the cells if the last turn has ended, as the moves of the dogs start a new turn.
+    private void startTurnChanges()
+    {
+        if (turnEnded)
+        {
+            nrTurnChanges = 0;
+            turnEnded = false;
+        }
+    }
+
+    // Adds the given change of a cell to the changes of the turn, if they are recorded. Recently moved sheep are
+    // recorded as sheep, as they are sheep again once the turn ends.
+    private void recordChange(int row, int col, byte value)
+    {
+        if (turnChanges == null)
+        {
+            return;
+        }
+        if (2 * nrTurnChanges == turnChanges.length)
+        {
+            turnChanges = Arrays.copyOf(turnChanges, 2 * turnChanges.length);
+        }
+        turnChanges[2 * nrTurnChanges] = row * this.settings.getNrBoardCols() + col;
+        turnChanges[2 * nrTurnChanges + 1] = value == Animals.UPDATED_SHEEP_ID ? Animals.SHEEP_ID : value;
+        nrTurnChanges++;
+    }
+
+    // Puts the given sheep on the board at its position, which must be a cell free of animals.
+    // Sheep placed this way keep their position up to date as they move, and are marked when they enter the pen.
+    public void placeSheep(Sheep sheep)
+    {
+        writeCell(sheep.getRow(), sheep.getCol(), Animals.SHEEP_ID);
+        setSheepOn(sheep.getRow(), sheep.getCol(), sheep);
+        sheep.setInPen(false);
+    }
+
+    // Returns the sheep placed with placeSheep that stands on the given cell, or null if there is none.
+    private Sheep sheepOn(int row, int col)
+    {
+        if (sheepOnCell != null)
+        {
+            return sheepOnCell[row * this.settings.getNrBoardCols() + col];
+        }
+        if (placedSheepOnCell != null)
+        {
+            int position = placedSheepOnCell.get(Board.cell(row, col), -1);
+            return position < 0 ? null : placedSheep.get(position);
+        }
+        return null;
+    }
+
+    // Records the given sheep as standing on the given cell, or no sheep if it is null. A sparse board adds
+    // the sheep to the list of placed sheep, so it must not be recorded on another cell already.
+    private void setSheepOn(int row, int col, Sheep sheep)
     {
-        if (Objects.equals(direction, "up"))
+        if (sheepOnCell != null)
         {
-            this.stateOfBoard[sheepRow][sheepCol] = 0;
-            if (getCellInfo(sheepRow-1, sheepCol) != 3)
+            sheepOnCell[row * this.settings.getNrBoardCols() + col] = sheep;
+        }
+        else if (placedSheepOnCell != null)
+        {
+            if (sheep == null)
+            {
+                placedSheepOnCell.remove(Board.cell(row, col));
+            }
+            else
             {
-                this.stateOfBoard[sheepRow-1][sheepCol] = Animals.UPDATED_SHEEP_ID;
+                placedSheepOnCell.put(Board.cell(row, col), placedSheep.size());
+                placedSheep.add(sheep);
             }
         }
-        else if (Objects.equals(direction, "down"))
+    }
+
+    // Records the sheep standing on the given cell, if any, as standing on the given new cell instead.
+    private void moveSheepOn(int row, int col, int newRow, int newCol)
+    {
+        if (sheepOnCell != null)
+        {
+            int nrBoardCols = this.settings.getNrBoardCols();
+            sheepOnCell[newRow * nrBoardCols + newCol] = sheepOnCell[row * nrBoardCols + col];
+            sheepOnCell[row * nrBoardCols + col] = null;
+        }
+        else if (placedSheepOnCell != null)
         {
-            this.stateOfBoard[sheepRow][sheepCol] = 0;
-            if (getCellInfo(sheepRow+1, sheepCol) != 3)
+            int position = placedSheepOnCell.get(Board.cell(row, col), -1);
+            if (position >= 0)
             {
-                this.stateOfBoard[sheepRow+1][sheepCol] = Animals.UPDATED_SHEEP_ID;
+                placedSheepOnCell.remove(Board.cell(row, col));
+                placedSheepOnCell.put(Board.cell(newRow, newCol), position);
             }
         }
-        else if (Objects.equals(direction, "left"))
+    }
+
+    // Forgets the sheep standing on every cell.
+    private void clearSheepOn()
+    {
+        if (sheepOnCell != null)
+        {
+            Arrays.fill(sheepOnCell, null);
+        }
+        else if (placedSheepOnCell != null)
+        {
+            placedSheepOnCell.clear();
+            placedSheep.clear();
+        }
+    }
+
+    // Returns the number of sheep that are not in the pen yet.
+    public int getNrSheepOutsidePen()
+    {
+        return nrSheepOutsidePen;
+    }
+
+    // Returns the number of bytes writeState writes for the current game. Throws an ArithmeticException if the board
+    // has too many cells for them to fit in a buffer.
+    public int getStateSize()
+    {
+        return Math.toIntExact((long) this.settings.getNrBoardRows() * this.settings.getNrBoardCols()
+                + (long) dogs.size() * 2 * Integer.BYTES + 1 + Long.BYTES + Integer.BYTES
+                + (long) sheep.size() * (2 * Integer.BYTES + 1));
+    }
+
+    // Writes the state of the game to the given buffer: the cells of the board, the position of every dog of the dog
+    // list, the state of the game, the state of the random source and the position of every sheep of the sheep list.
+    // Reading it back with readState continues the game exactly from this point.
+    public void writeState(ByteBuffer buffer)
+    {
+        this.stateOfBoard.writeTo(buffer);
+        for (Dog dog : dogs)
+        {
+            buffer.putInt(dog.getRow());
+            buffer.putInt(dog.getCol());
+        }
+        buffer.put(stateOfGame);
+        buffer.putLong(random.getState());
+        buffer.putInt(sheep.size());
+        for (Sheep oneSheep : sheep)
+        {
+            buffer.putInt(oneSheep.getRow());
+            buffer.putInt(oneSheep.getCol());
+            buffer.put((byte) (oneSheep.isInPen() ? 1 : 0));
+        }
+    }
+
+    // Reads a state written by writeState for the same game, on a board with the same dimensions and the same
+    // number of dogs and sheep. Throws an IllegalArgumentException if the number of sheep differs.
+    public void readState(ByteBuffer buffer)
+    {
+        if (TurnMetrics.ENABLED)
+        {
+            TurnMetrics.BOARD_SCANS.increment();
+        }
+        this.stateOfBoard.readFrom(buffer);
+        int nrBoardRows = this.settings.getNrBoardRows();
+        int nrBoardCols = this.settings.getNrBoardCols();
+        sheepIndex.clear();
+        dogIndex.clear();
+        clearSheepOn();
+        nrSheepOutsidePen = 0;
+        stateHash = Zobrist.boardKey(nrBoardRows, nrBoardCols);
+        for (int i = 0; i < nrBoardRows; i++)
         {
-            this.stateOfBoard[sheepRow][sheepCol] = 0;
-            if (getCellInfo(sheepRow, sheepCol-1) != 3)
+            for (int j = 0; j < nrBoardCols; j++)
             {
-                this.stateOfBoard[sheepRow][sheepCol-1] = Animals.UPDATED_SHEEP_ID;
+                byte cellType = this.stateOfBoard.getNear(i, j);
+                stateHash ^= cellKey(i, j, cellType);
+                if (isSheep(cellType))
+                {
+                    sheepIndex.add(i, j);
+                    nrSheepOutsidePen++;
+                }
+                else if (cellType == Animals.DOG_ID)
+                {
+                    dogIndex.add(i, j);
+                }
             }
         }
-        else if (Objects.equals(direction, "right"))
+        frontCellsValid = false;
+        clearTurnChanges();
+
+        for (Dog dog : dogs)
+        {
+            dog.setPosition(buffer.getInt(), buffer.getInt());
+        }
+        stateOfGame = buffer.get();
+        random.setState(buffer.getLong());
+        int nrSheep = buffer.getInt();
+        if (nrSheep != sheep.size())
+        {
+            throw new IllegalArgumentException("State has " + nrSheep + " sheep, the game has " + sheep.size());
+        }
+        for (Sheep oneSheep : sheep)
         {
-            this.stateOfBoard[sheepRow][sheepCol] = 0;
-            if (getCellInfo(sheepRow, sheepCol+1) != 3)
+            oneSheep.setPosition(buffer.getInt(), buffer.getInt());
+            oneSheep.setInPen(buffer.get() != 0);
+            if (!oneSheep.isInPen())
             {
-                this.stateOfBoard[sheepRow][sheepCol+1] = Animals.UPDATED_SHEEP_ID;
+                setSheepOn(oneSheep.getRow(), oneSheep.getCol(), oneSheep);
             }
         }
     }
 
-    @Override
-    // Returns true if all the sheep are in the pen. Otherwise, returns false.
-    public boolean areAllSheepInPen()
+    // Returns a snapshot of the state of the game, which restore can put back later, in this model or in another
+    // model of the same game. The cost is a copy of the board and of the cells of the sheep, which for a sparse board
+    // is a copy of the cells holding an animal.
+    public ModelSnapshot snapshot()
+    {
+        int[] listedSheepPositions = new int[2 * sheep.size()];
+        for (int k = 0; k < sheep.size(); k++)
+        {
+            Sheep oneSheep = sheep.get(k);
+            listedSheepPositions[2 * k] = oneSheep.isInPen() ? -1 - oneSheep.getRow() : oneSheep.getRow();
+            listedSheepPositions[2 * k + 1] = oneSheep.getCol();
+        }
+        int[] dogPositions = new int[2 * dogs.size()];
+        for (int k = 0; k < dogs.size(); k++)
+        {
+            dogPositions[2 * k] = dogs.get(k).getRow();
+            dogPositions[2 * k + 1] = dogs.get(k).getCol();
+        }
+        return new ModelSnapshot(this.settings.getNrBoardRows(), this.settings.getNrBoardCols(),
+                this.stateOfBoard.copy(), sheepIndex.copy(), listedSheepPositions, penDistanceField,
+                dogIndex.copy(), dogPositions, stateOfGame, random.getState(), stateHash);
+    }
+
+    // Puts the game back in the state of the given snapshot. The dogs and the sheep of the lists are moved back
+    // to their cells, so the snapshot must be of a game with the same board dimensions and the same number of dogs
+    // and sheep. Throws an IllegalArgumentException otherwise.
+    public void restore(ModelSnapshot snapshot)
     {
-        // Iterates between all cells of the board.
-        // If a single sheep is found returns false.
-        for (int i = 0; i < settings.nrBoardRows; i++)
+        int nrBoardCols = this.settings.getNrBoardCols();
+        if (snapshot.nrBoardRows != this.settings.getNrBoardRows() || snapshot.nrBoardCols != nrBoardCols)
+        {
+            throw new IllegalArgumentException("Snapshot is of a " + snapshot.nrBoardRows + "x" + snapshot.nrBoardCols
+                    + " board, the game has a " + this.settings.getNrBoardRows() + "x" + nrBoardCols + " board");
+        }
+        if (snapshot.listedSheepPositions.length != 2 * sheep.size())
+        {
+            throw new IllegalArgumentException("Snapshot has " + snapshot.listedSheepPositions.length / 2
+                    + " sheep, the game has " + sheep.size());
+        }
+        if (snapshot.dogPositions.length != 2 * dogs.size())
+        {
+            throw new IllegalArgumentException("Snapshot has " + snapshot.dogPositions.length / 2
+                    + " dogs, the game has " + dogs.size());
+        }
+
+        // Only the sheep of the sheep list are on sheepOnCell, at their cell if they are not in the pen.
+        if (sheepOnCell != null)
         {
-            for (int j = 0; j < settings.nrBoardCols; j++)
+            for (Sheep oneSheep : sheep)
             {
-                if (this.stateOfBoard[i][j] == Animals.SHEEP_ID)
+                if (!oneSheep.isInPen())
                 {
-                    return false;
+                    sheepOnCell[oneSheep.getRow() * nrBoardCols + oneSheep.getCol()] = null;
                 }
             }
         }
-        return true;
-    }
+        else
+        {
+            clearSheepOn();
+        }
+        frontCellsValid = false;
 
-    // Returns the id of the cell specified.
-    // Returns 0 or 1 or 2 or 3 if the cell type is grass, dog, sheep or pen respectively.
-    // It also returns 4 if a sheep just moved in the specified cell, which later it will be converted to 2 indicating
-    // there is a sheep there.
-    // Moreover, returns -1 if the specified coordinated are outside the board, to avoid any out of index errors.
-    @Override
-    public byte getCellInfo(int row, int column)
-    {
-        // Checks if the specified coordinates are outside the board to return -1.
-        if (row >= getSettings().getNrBoardRows() ||
-                column >= getSettings().getNrBoardCols() ||
-                row < 0 ||
-                column < 0)
+        this.stateOfBoard.copyFrom(snapshot.board);
+        stateHash = snapshot.stateHash;
+        sheepIndex.copyFrom(snapshot.sheepIndex);
+        nrSheepOutsidePen = snapshot.sheepIndex.size();
+        for (int k = 0; k < sheep.size(); k++)
         {
-            return (byte) -1;
+            Sheep oneSheep = sheep.get(k);
+            int row = snapshot.listedSheepPositions[2 * k];
+            int col = snapshot.listedSheepPositions[2 * k + 1];
+            oneSheep.setInPen(row < 0);
+            if (row < 0)
+            {
+                row = -1 - row;
+            }
+            else
+            {
+                setSheepOn(row, col, oneSheep);
+            }
+            oneSheep.setPosition(row, col);
         }
-        else
+
+        penDistanceField = snapshot.penDistanceField;
+        dogIndex.copyFrom(snapshot.dogIndex);
+        for (int k = 0; k < dogs.size(); k++)
         {
-            return this.stateOfBoard[row][column];
+            dogs.get(k).setPosition(snapshot.dogPositions[2 * k], snapshot.dogPositions[2 * k + 1]);
         }
+        stateOfGame = snapshot.stateOfGame;
+        random.setState(snapshot.randomState);
+        clearTurnChanges();
     }
 
     @Override
-    // It changes the type of the specific cell to the specified value.
-    public void setCellInfo(int i, int j, byte value)
+    // Returns the Zobrist hash of the dimensions and the cells of the board, kept up to date with every change
+    // of a cell.
+    public long stateHash()
+    {
+        return stateHash;
+    }
+
+    // Returns the Zobrist key of the given cell type on the given cell, where a recently moved sheep is a sheep.
+    private long cellKey(int row, int col, byte cellType)
+    {
+        return Zobrist.key((long) row * this.settings.getNrBoardCols() + col,
+                cellType == Animals.UPDATED_SHEEP_ID ? Animals.SHEEP_ID : cellType);
+    }
+
+    // Returns true if the given cell type is a sheep or a recently moved sheep.
+    private static boolean isSheep(byte cellType)
     {
-        this.stateOfBoard[i][j] = value;
+        return cellType == Animals.SHEEP_ID || cellType == Animals.UPDATED_SHEEP_ID;
     }
 
 	@Override
-    // Getter of dog.
+    // Getter of dog, the first dog of the dog list.
     public Dog getDog()
     {
-		return dog;
+		return dogs.get(0);
 	}
 
 	@Override
-    // Setter of dog.
+    // Setter of dog, which replaces the first dog of the dog list.
     public void setDog(Dog dog)
     {
-		this.dog = dog;
+        if (dogs.isEmpty())
+        {
+            dogs.add(dog);
+        }
+        else
+        {
+            dogs.set(0, dog);
+        }
 	}
 
+    @Override
+    // Getter of dog list.
+    public ArrayList<Dog> getDogs()
+    {
+        return dogs;
+    }
+
+    // Makes the dog list hold the given number of dogs, keeping the dogs already in it and numbering the new ones
+    // after them. The dogs are not placed on the board.
+    public void initDogs(int nrDogs)
+    {
+        while (dogs.size() > Math.max(1, nrDogs))
+        {
+            dogs.remove(dogs.size() - 1);
+        }
+        while (dogs.size() < nrDogs)
+        {
+            dogs.add(new Dog(dogs.size()));
+        }
+    }
+
     @Override
     // Getter of sheep list.
     public ArrayList<Sheep> getSheep() {
         return sheep;
     }
 
+    // Getter of the way sheep are moved during a turn.
+    public TurnEngine getTurnEngine()
+    {
+        return turnEngine;
+    }
+
+    // Setter of the way sheep are moved during a turn. It can be changed between turns.
+    public void setTurnEngine(TurnEngine turnEngine)
+    {
+        this.turnEngine = turnEngine;
+    }
+
+    // Getter of the way the board keeps its cells.
+    public BoardStorage getBoardStorage()
+    {
+        return boardStorage;
+    }
+
+    // Setter of the way the board keeps its cells. It takes effect when the board of the next game is initialized.
+    public void setBoardStorage(BoardStorage boardStorage)
+    {
+        this.boardStorage = boardStorage;
+    }
+
+    // Returns true if the changes of the cells made by every turn are recorded.
+    public boolean isRecordingTurnChanges()
+    {
+        return turnChanges != null;
+    }
+
+    // Setter of whether the changes of the cells made by every turn are recorded, which they are not by default.
+    // Only a board whose number of cells fits in an int can record them, as each is recorded by the index of its cell.
+    public void setRecordingTurnChanges(boolean recordingTurnChanges)
+    {
+        if (recordingTurnChanges && turnChanges == null)
+        {
+            Math.toIntExact((long) this.settings.getNrBoardRows() * this.settings.getNrBoardCols());
+            turnChanges = new int[64];
+        }
+        else if (!recordingTurnChanges)
+        {
+            turnChanges = null;
+        }
+        clearTurnChanges();
+    }
+
+    // Returns the changes of the cells made by the last turn, or by the turn in progress, as pairs of the index
+    // of a cell, row * nrBoardCols + col, and its new type, in the order they were made. A cell changed more than
+    // once is listed each time, so its last pair gives its type. Only the first getNrTurnChanges pairs are changes,
+    // and the array is reused by the next turn. Returns null if the changes are not recorded.
+    public int[] getTurnChanges()
+    {
+        return turnChanges;
+    }
+
+    // Returns the number of changes of the cells made by the last turn, or by the turn in progress.
+    public int getNrTurnChanges()
+    {
+        return nrTurnChanges;
+    }
+
+    // Getter of the moves tried by fleeing and flocking sheep.
+    public HerdingRules getHerdingRules()
+    {
+        return herdingRules;
+    }
+
+    // Setter of the moves tried by fleeing and flocking sheep. They can be changed between turns.
+    public void setHerdingRules(HerdingRules herdingRules)
+    {
+        this.herdingRules = herdingRules;
+    }
+
+    // Getter of the board, for the classes of the game package that read many of its cells.
+    Board getBoard()
+    {
+        return stateOfBoard;
+    }
+
+    // Getter of the nearest pen cell of every cell of the board.
+    public PenDistanceField getPenDistanceField()
+    {
+        return penDistanceField;
+    }
+
+    // Setter of the pool running the bands of a parallel turn. The common pool is used by default.
+    public void setParallelPool(ForkJoinPool parallelPool)
+    {
+        this.parallelPool = parallelPool;
+    }
+
+    // Getter of the source of the random decisions of the game.
+    public InterfaceRandomSource getRandom()
+    {
+        return random;
+    }
+
     @Override
     // Getter of current game settings.
     public GameSettings getSettings()
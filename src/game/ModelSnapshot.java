@@ -0,0 +1,63 @@
+package game;
+
+/**
+ * This class holds the state of a game at one point, as taken by Model.snapshot, so the game can be put back
+ * in that state with Model.restore. It is immutable, so one snapshot can be restored any number of times.
+ * The board is kept as a copy of the board of the model and the dogs and the sheep as arrays of cells.
+ * The nearest pen cells of the board are not copied: snapshots share them with the model as long as the pen
+ * does not change, which it does not during a game.
+ */
+public final class ModelSnapshot
+{
+    final int nrBoardRows;
+    final int nrBoardCols;
+    // Copy of the board, which is never changed.
+    final Board board;
+    // Cells of the board holding a sheep.
+    final SpatialIndex sheepIndex;
+    // Row and column of every sheep of the sheep list, one after the other in the order of the list.
+    // The row of a sheep in the pen is stored as -1 - row.
+    final int[] listedSheepPositions;
+    final PenDistanceField penDistanceField;
+    // Cells of the board holding a dog, and the row and column of every dog of the dog list.
+    final SpatialIndex dogIndex;
+    final int[] dogPositions;
+    final byte stateOfGame;
+    final long randomState;
+    final long stateHash;
+
+    ModelSnapshot(int nrBoardRows, int nrBoardCols, Board board, SpatialIndex sheepIndex, int[] listedSheepPositions,
+                  PenDistanceField penDistanceField, SpatialIndex dogIndex, int[] dogPositions, byte stateOfGame,
+                  long randomState, long stateHash)
+    {
+        this.nrBoardRows = nrBoardRows;
+        this.nrBoardCols = nrBoardCols;
+        this.board = board;
+        this.sheepIndex = sheepIndex;
+        this.listedSheepPositions = listedSheepPositions;
+        this.penDistanceField = penDistanceField;
+        this.dogIndex = dogIndex;
+        this.dogPositions = dogPositions;
+        this.stateOfGame = stateOfGame;
+        this.randomState = randomState;
+        this.stateHash = stateHash;
+    }
+
+    // Getter of the state of the game when the snapshot was taken.
+    public byte getGameState()
+    {
+        return stateOfGame;
+    }
+
+    // Returns the Zobrist hash of the board when the snapshot was taken, as returned by Model.stateHash.
+    public long stateHash()
+    {
+        return stateHash;
+    }
+
+    // Returns the number of sheep that were not in the pen when the snapshot was taken.
+    public int getNrSheepOutsidePen()
+    {
+        return sheepIndex.size();
+    }
+}
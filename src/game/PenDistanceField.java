@@ -0,0 +1,157 @@
+package game;
+
+import animals.Animals;
+
+/**
+ * This class gives, for every cell of the board, the nearest pen cell and the squared Euclidean distance to it.
+ * A pen that fills a rectangle, as in every setup of the game, needs no table: the nearest pen cell of a cell
+ * is the cell clamped into the rectangle, which costs less to compute than a table costs to build.
+ * Any other pen falls back to tables holding both for every cell, built once when the board is set up, as the pen
+ * never changes during a game, so the reluctance of the sheep to enter the pen then costs a single lookup.
+ */
+public class PenDistanceField
+{
+    // Squared distance returned for every cell when the board has no pen.
+    public static final int NO_PEN_DISTANCE = Integer.MAX_VALUE;
+
+    private final int nrBoardCols;
+    private final int[] nearestPenCells;
+    private final int[] squaredDistances;
+    // True if the pen fills the rectangle of the given rows and columns, in which case there are no tables.
+    private final boolean rectangular;
+    private final int firstPenRow;
+    private final int lastPenRow;
+    private final int firstPenCol;
+    private final int lastPenCol;
+
+    // Creates a field for a board without a pen.
+    public PenDistanceField()
+    {
+        this.nrBoardCols = 0;
+        this.nearestPenCells = null;
+        this.squaredDistances = null;
+        this.rectangular = false;
+        this.firstPenRow = -1;
+        this.lastPenRow = -1;
+        this.firstPenCol = -1;
+        this.lastPenCol = -1;
+    }
+
+    // Creates the field of a pen filling the rectangle from the given first row and column to the given last row
+    // and column, which needs nothing from the board. A first row of -1 means there is no pen.
+    public PenDistanceField(int firstPenRow, int lastPenRow, int firstPenCol, int lastPenCol)
+    {
+        this.nrBoardCols = 0;
+        this.nearestPenCells = null;
+        this.squaredDistances = null;
+        this.rectangular = firstPenRow >= 0;
+        this.firstPenRow = firstPenRow;
+        this.lastPenRow = lastPenRow;
+        this.firstPenCol = firstPenCol;
+        this.lastPenCol = lastPenCol;
+    }
+
+    // Creates the field of the given board.
+    public PenDistanceField(Board board)
+    {
+        int nrBoardRows = board.getNrRows();
+        int nrBoardCols = board.getNrCols();
+        this.nrBoardCols = nrBoardCols;
+
+        // Find the pen cells and the smallest rectangle containing them.
+        int nrPenCells = 0;
+        int firstPenRow = Integer.MAX_VALUE;
+        int lastPenRow = -1;
+        int firstPenCol = Integer.MAX_VALUE;
+        int lastPenCol = -1;
+        for (int i = 0; i < nrBoardRows; i++)
+        {
+            for (int j = 0; j < nrBoardCols; j++)
+            {
+                if (board.getNear(i, j) == Animals.PEN_CELL_ID)
+                {
+                    nrPenCells++;
+                    firstPenRow = Math.min(firstPenRow, i);
+                    lastPenRow = Math.max(lastPenRow, i);
+                    firstPenCol = Math.min(firstPenCol, j);
+                    lastPenCol = Math.max(lastPenCol, j);
+                }
+            }
+        }
+
+        this.firstPenRow = firstPenRow;
+        this.lastPenRow = lastPenRow;
+        this.firstPenCol = firstPenCol;
+        this.lastPenCol = lastPenCol;
+        // The nearest pen cell of a rectangle is the cell clamped into it. It is the only pen cell at that distance,
+        // so there is no tie to break.
+        this.rectangular = nrPenCells > 0
+                && nrPenCells == (lastPenRow - firstPenRow + 1) * (lastPenCol - firstPenCol + 1);
+        if (nrPenCells == 0 || rectangular)
+        {
+            this.nearestPenCells = null;
+            this.squaredDistances = null;
+        }
+        else
+        {
+            this.nearestPenCells = new int[nrBoardRows * nrBoardCols];
+            this.squaredDistances = new int[nrBoardRows * nrBoardCols];
+            // Any other pen shape is compared cell by cell. The first pen cell in row-major order wins a tie.
+            for (int i = 0; i < nrBoardRows; i++)
+            {
+                for (int j = 0; j < nrBoardCols; j++)
+                {
+                    int nearestPenCell = -1;
+                    int smallestDistance = NO_PEN_DISTANCE;
+                    for (int k = firstPenRow; k <= lastPenRow; k++)
+                    {
+                        for (int n = firstPenCol; n <= lastPenCol; n++)
+                        {
+                            int distance = (k - i) * (k - i) + (n - j) * (n - j);
+                            if (board.getNear(k, n) == Animals.PEN_CELL_ID && distance < smallestDistance)
+                            {
+                                nearestPenCell = k * nrBoardCols + n;
+                                smallestDistance = distance;
+                            }
+                        }
+                    }
+                    nearestPenCells[i * nrBoardCols + j] = nearestPenCell;
+                    squaredDistances[i * nrBoardCols + j] = smallestDistance;
+                }
+            }
+        }
+    }
+
+    // Returns the row of the pen cell nearest to the given cell, or -1 if there is no pen.
+    public int nearestPenRow(int row, int col)
+    {
+        if (rectangular)
+        {
+            return Math.max(firstPenRow, Math.min(lastPenRow, row));
+        }
+        return nearestPenCells == null ? -1 : nearestPenCells[row * nrBoardCols + col] / nrBoardCols;
+    }
+
+    // Returns the column of the pen cell nearest to the given cell, or -1 if there is no pen.
+    public int nearestPenCol(int row, int col)
+    {
+        if (rectangular)
+        {
+            return Math.max(firstPenCol, Math.min(lastPenCol, col));
+        }
+        return nearestPenCells == null ? -1 : nearestPenCells[row * nrBoardCols + col] % nrBoardCols;
+    }
+
+    // Returns the squared Euclidean distance from the given cell to its nearest pen cell,
+    // or NO_PEN_DISTANCE if there is no pen.
+    public int squaredDistance(int row, int col)
+    {
+        if (rectangular)
+        {
+            int dRow = Math.max(firstPenRow, Math.min(lastPenRow, row)) - row;
+            int dCol = Math.max(firstPenCol, Math.min(lastPenCol, col)) - col;
+            return dRow * dRow + dCol * dCol;
+        }
+        return squaredDistances == null ? NO_PEN_DISTANCE : squaredDistances[row * nrBoardCols + col];
+    }
+}
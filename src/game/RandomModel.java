@@ -1,37 +1,78 @@
 package game;
 
 import util.GameSettings;
-import java.util.concurrent.ThreadLocalRandom;
-import animals.Animals;
+import animals.Dog;
 import animals.Sheep;
 import interfaces.InterfaceModel;
+import interfaces.InterfaceRandomSource;
+
+import java.util.Arrays;
 
 /**
  * This class inherits from the Model class, and is used to represent the state of a random setup game.
  */
 public class RandomModel extends Model
 {
+    // Check a setup must pass, or null to keep the first setup drawn.
+    private SetupCheck setupCheck;
+    // The animals are placed by a partial Fisher-Yates shuffle of the numbers of the free cells: each animal takes
+    // the number at the next position, after swapping it with the number at a position drawn from the positions
+    // not taken yet, so no cell is drawn twice. Only the positions swapped hold another number than their own,
+    // and they are kept in an open addressing table, so placing the animals costs as many steps as there are
+    // animals, whatever the size of the board.
+    private int[] swapPositions = new int[0];
+    private int[] swapNumbers = new int[0];
+    private int nrSwaps;
+    private int nrFreeCells;
+    private int firstPenRow;
+    private int firstPenCol;
+
     // The constructor loads the settings from the model class.
 	public RandomModel(GameSettings settings)
     {
 		super(settings);
 	}
+
+    // The constructor loads the settings from the model class, and draws the setup and every random decision
+    // of the game from the given source.
+    public RandomModel(GameSettings settings, InterfaceRandomSource random)
+    {
+        super(settings, random);
+    }
 	
 	@Override
-    // Used to initialize the random setup game.
+    // Used to initialize the random setup game, with the number of dogs of the given settings, or one dog.
+    // With a setup check, setups are drawn from the random source until one passes it, so the same seed still gives
+    // the same game. A setup with no cell left for a dog to move from is drawn again as well. The game started event
+    // lasts over every setup drawn.
     public void initNewGame(GameSettings settings)
+    {
+        GameStartedEvent event = new GameStartedEvent();
+        event.begin();
+        boolean dogsPlaced;
+        do
+        {
+            getSheep().clear();
+            dogsPlaced = initRandomSetup(Math.max(1, settings.getNrDogs()));
+        }
+        while (!dogsPlaced || (setupCheck != null && !setupCheck.accepts(this)));
+        event.commit(this, true);
+    }
+
+    // Draws the dimensions of the board and of the pen, the number of sheep and the position of every animal,
+    // and returns false if no grass cell was left where one of the given number of dogs could move.
+    private boolean initRandomSetup(int nrDogs)
     {
         // Find random numbers for each required setting in given ranges.
         // Ranges are set up in a way that ensures the game is playable.
-        int nrBoardRows = ThreadLocalRandom.current().nextInt(6, 51);
-        int nrBoardCols = ThreadLocalRandom.current().nextInt(6, 51);
-        int nrDogs = 1;
-        int nrPenCols = ThreadLocalRandom.current().nextInt(2, Math.round(nrBoardCols/2)+1);
-        int nrPenRows = ThreadLocalRandom.current().nextInt(2, Math.round(nrBoardRows/2)+1);
+        int nrBoardRows = getRandom().nextInt(6, 51);
+        int nrBoardCols = getRandom().nextInt(6, 51);
+        int nrPenCols = getRandom().nextInt(2, Math.round(nrBoardCols/2)+1);
+        int nrPenRows = getRandom().nextInt(2, Math.round(nrBoardRows/2)+1);
         int penSpace = nrPenRows*nrPenCols;
         int availableSpace = (nrBoardRows*nrBoardCols) - penSpace;
         // Number of sheep are never more than pen size.
-        int nrSheep = ThreadLocalRandom.current().nextInt(1, Math.min(Math.round(availableSpace/3) + 1,
+        int nrSheep = getRandom().nextInt(1, Math.min(Math.round(availableSpace/3) + 1,
                 penSpace + 1));
 
         // Create new game settings and set the game settings using the random settings generated above.
@@ -43,66 +84,211 @@ public class RandomModel extends Model
         setGameState(InterfaceModel.GAME_IN_PROGRESS);
 
         // Randomly generate a starting position of the pen and insert pen on specified cells.
-        int firstPenRow = ThreadLocalRandom.current().nextInt(0,
+        int firstPenRow = getRandom().nextInt(0,
                 getSettings().getNrBoardRows()- getSettings().getNrPenRows());
-        int firstPenCol = ThreadLocalRandom.current().nextInt(0,
+        int firstPenCol = getRandom().nextInt(0,
         		getSettings().getNrBoardCols() - getSettings().getNrPenCols());
-        for (int i = firstPenRow; i < firstPenRow + getSettings().getNrPenRows(); i++)
+        placePen(firstPenRow, firstPenCol);
+        initPenDistanceField();
+        startShuffle(firstPenRow, firstPenCol);
+
+        // Initialize and insert randomly in grass cells the sheep.
+        initRandomSheep();
+
+        // Insert every dog on a random grass cell, each drawn from the cells no animal took yet.
+        initDogs(nrDogs);
+        int position = getSettings().getNrSheep();
+        for (Dog dog : getDogs())
         {
-            for (int j = firstPenCol; j < firstPenCol + getSettings().getNrPenCols(); j++)
+            position = initRandomDog(dog, position);
+            if (position < 0)
             {
-                setCellInfo(i,j, Animals.PEN_CELL_ID);
+                return false;
             }
         }
+        return true;
+    }
 
-        // Initialize and insert randomly in grass cells the sheep.
-        initRandomSheep();
+    // Getter of the check a setup must pass, or null if there is none.
+    public SetupCheck getSetupCheck()
+    {
+        return setupCheck;
+    }
 
-        // Insert dog on a random grass cell.
-        getDog().setDogRow(ThreadLocalRandom.current().nextInt(0, getSettings().getNrBoardRows()));
-        getDog().setDogColumn(ThreadLocalRandom.current().nextInt(0, getSettings().getNrBoardCols()));
-        int dogRow = getDog().getRow();
-        int dogColumn = getDog().getCol();
-        // This ensures that the dog is not placed in a cell, that does not offer any valid move and traps him.
-        // Randomly generate dog coordinates until a suitable grass cell is found.
-        while(getCellInfo(dogRow,dogColumn) != 0 ||
-                (getCellInfo(dogRow-1,dogColumn) != 0 &&
-                        getCellInfo(dogRow+1,dogColumn) != 0 &&
-                        getCellInfo(dogRow,dogColumn-1) != 0 &&
-                        getCellInfo(dogRow,dogColumn+1) != 0 &&
-                        getCellInfo(dogRow-1,dogColumn) != -1 &&
-                        getCellInfo(dogRow+1,dogColumn) != -1 &&
-                        getCellInfo(dogRow,dogColumn-1) != -1 &&
-                        getCellInfo(dogRow,dogColumn+1) != -1))
+    // Setter of the check a setup must pass. A null check, the default, keeps the first setup drawn.
+    public void setSetupCheck(SetupCheck setupCheck)
+    {
+        this.setupCheck = setupCheck;
+    }
+
+    // Starts a new shuffle of the free cells, which are the cells outside the pen, numbered row after row.
+    private void startShuffle(int firstPenRow, int firstPenCol)
+    {
+        this.firstPenRow = firstPenRow;
+        this.firstPenCol = firstPenCol;
+        nrFreeCells = getSettings().getNrBoardRows() * getSettings().getNrBoardCols()
+                - getSettings().getNrPenRows() * getSettings().getNrPenCols();
+        // The sheep and the first cells tried for the dog fill the table at most half; more cells grow it.
+        int tableSize = Integer.highestOneBit(getSettings().getNrSheep() + 8) << 2;
+        if (swapPositions.length != tableSize)
+        {
+            swapPositions = new int[tableSize];
+            swapNumbers = new int[tableSize];
+        }
+        Arrays.fill(swapPositions, -1);
+        nrSwaps = 0;
+    }
+
+    // Swaps the number at a position drawn at random from the given position on into that position,
+    // and returns the free cell it numbers, as freeCell does.
+    private int drawFreeCell(int position)
+    {
+        int drawn = getRandom().nextInt(position, nrFreeCells);
+        int number = numberAt(drawn);
+        // The given position is never read again, so only the drawn position needs the number it swaps with.
+        if (drawn != position)
         {
-        	getDog().setDogRow(ThreadLocalRandom.current().nextInt(0, getSettings().getNrBoardRows()));
-			getDog().setDogColumn(ThreadLocalRandom.current().nextInt(0, getSettings().getNrBoardCols()));
-            dogRow = getDog().getRow();
-            dogColumn = getDog().getCol();
+            setNumberAt(drawn, numberAt(position));
+        }
+        return freeCell(number);
+    }
+
+    // Returns the number at the given position of the shuffle, which is the position itself until it is swapped.
+    // The positions swapped are drawn at random, so their low bits spread them over the table as they are.
+    private int numberAt(int position)
+    {
+        int mask = swapPositions.length - 1;
+        for (int slot = position & mask; swapPositions[slot] != -1; slot = (slot + 1) & mask)
+        {
+            if (swapPositions[slot] == position)
+            {
+                return swapNumbers[slot];
+            }
         }
-        setCellInfo(dogRow,dogColumn, getDog().getType());
+        return position;
+    }
+
+    // Sets the number at the given position of the shuffle, growing the table when it becomes half full.
+    private void setNumberAt(int position, int number)
+    {
+        int mask = swapPositions.length - 1;
+        int slot = position & mask;
+        while (swapPositions[slot] != -1 && swapPositions[slot] != position)
+        {
+            slot = (slot + 1) & mask;
+        }
+        if (swapPositions[slot] == -1)
+        {
+            if (2 * (nrSwaps + 1) > swapPositions.length)
+            {
+                growSwapTable();
+                setNumberAt(position, number);
+                return;
+            }
+            swapPositions[slot] = position;
+            nrSwaps++;
+        }
+        swapNumbers[slot] = number;
+    }
+
+    // Doubles the size of the table of swapped positions, moving every entry to its slot in the new table.
+    private void growSwapTable()
+    {
+        int[] oldPositions = swapPositions;
+        int[] oldNumbers = swapNumbers;
+        swapPositions = new int[oldPositions.length << 1];
+        swapNumbers = new int[oldPositions.length << 1];
+        Arrays.fill(swapPositions, -1);
+        int mask = swapPositions.length - 1;
+        for (int k = 0; k < oldPositions.length; k++)
+        {
+            if (oldPositions[k] != -1)
+            {
+                int slot = oldPositions[k] & mask;
+                while (swapPositions[slot] != -1)
+                {
+                    slot = (slot + 1) & mask;
+                }
+                swapPositions[slot] = oldPositions[k];
+                swapNumbers[slot] = oldNumbers[k];
+            }
+        }
+    }
+
+    // Returns the free cell of the given number, with its row in the high 16 bits and its column in the low 16.
+    // The rows above the pen come first, then the cells beside the pen in its rows, then the rows below it.
+    private int freeCell(int number)
+    {
+        int nrBoardCols = getSettings().getNrBoardCols();
+        int nrPenRows = getSettings().getNrPenRows();
+        int nrPenCols = getSettings().getNrPenCols();
+        int nrCellsAbovePen = firstPenRow * nrBoardCols;
+        int nrColsBesidePen = nrBoardCols - nrPenCols;
+        int row;
+        int col;
+        if (number < nrCellsAbovePen)
+        {
+            row = number / nrBoardCols;
+            col = number - row * nrBoardCols;
+        }
+        else if (number < nrCellsAbovePen + nrPenRows * nrColsBesidePen)
+        {
+            int besidePen = number - nrCellsAbovePen;
+            int penRow = besidePen / nrColsBesidePen;
+            row = firstPenRow + penRow;
+            col = besidePen - penRow * nrColsBesidePen;
+            col = col < firstPenCol ? col : col + nrPenCols;
+        }
+        else
+        {
+            int belowPen = number - nrCellsAbovePen - nrPenRows * nrColsBesidePen;
+            row = firstPenRow + nrPenRows + belowPen / nrBoardCols;
+            col = belowPen % nrBoardCols;
+        }
+        return (row << 16) | col;
     }
 
     // Initializes sheep on random setup, and inserts them in the sheep list while setting their locations.
 	private void initRandomSheep()
     {
-        // Place the required number of sheep in grass cells.
-        int sheepRow;
-        int sheepColumn;
+        // Place the required number of sheep in grass cells, each drawn from the cells no sheep took yet.
         for (int i = 0; i < getSettings().getNrSheep(); i++)
         {
-            sheepRow = ThreadLocalRandom.current().nextInt(0,getSettings().getNrBoardRows());
-            sheepColumn = ThreadLocalRandom.current().nextInt(0, getSettings().getNrBoardCols());
-            // Randomly generate sheep coordinates until a suitable grass cell is found.
-            while(getCellInfo(sheepRow,sheepColumn) != 0)
-            {
-                sheepRow = ThreadLocalRandom.current().nextInt(0, getSettings().getNrBoardRows());
-                sheepColumn = ThreadLocalRandom.current().nextInt(0, getSettings().getNrBoardCols());
-            }
+            int cell = drawFreeCell(i);
             // Create new sheep, add it in the sheep list and insert it on the board.
-            Sheep sheep = new Sheep(i, sheepRow, sheepColumn);
+            Sheep sheep = new Sheep(i, cell >>> 16, cell & 0xffff);
             getSheep().add(sheep);
-            setCellInfo(sheepRow, sheepColumn, sheep.type);
+            placeSheep(sheep);
         }
 	}
+
+    // Places the given dog on a random grass cell left by the animals placed before it, which took the positions
+    // of the shuffle before the given one. Returns the position after the one the dog took, or -1 if every cell left
+    // traps him.
+    private int initRandomDog(Dog dog, int firstPosition)
+    {
+        // This ensures that the dog is not placed in a cell, that does not offer any valid move and traps him.
+        // A cell that does is dropped by moving on to the next position, so every cell is tried at most once.
+        for (int position = firstPosition; position < nrFreeCells; position++)
+        {
+            int cell = drawFreeCell(position);
+            int dogRow = cell >>> 16;
+            int dogColumn = cell & 0xffff;
+            if (!(getCellInfo(dogRow-1,dogColumn) != 0 &&
+                    getCellInfo(dogRow+1,dogColumn) != 0 &&
+                    getCellInfo(dogRow,dogColumn-1) != 0 &&
+                    getCellInfo(dogRow,dogColumn+1) != 0 &&
+                    getCellInfo(dogRow-1,dogColumn) != -1 &&
+                    getCellInfo(dogRow+1,dogColumn) != -1 &&
+                    getCellInfo(dogRow,dogColumn-1) != -1 &&
+                    getCellInfo(dogRow,dogColumn+1) != -1))
+            {
+                dog.setDogRow(dogRow);
+                dog.setDogColumn(dogColumn);
+                setCellInfo(dogRow,dogColumn, dog.getType());
+                return position + 1;
+            }
+        }
+        return -1;
+    }
 }
@@ -0,0 +1,296 @@
+package game;
+
+import animals.Animals;
+import animals.Sheep;
+
+import java.util.function.Predicate;
+
+/**
+ * This class decides if the setup of a new game looks playable, so a random setup that does not can be drawn again.
+ * Two flood fills of the board are made: the cells the dog can walk to over grass, and the cells connected to the pen
+ * over grass. Every sheep must be next to both, so the dog can get to it and it has a free way to the pen.
+ * The fills work on the rows of the board as bit masks, 64 cells at a time, so they cost little next to setting
+ * the game up. A solver, such as a short run
+ * of a dog planner, can be given to try the setups that pass the fills, which costs many turns per setup.
+ * A check keeps its work arrays and counts between setups, so it must be used by one thread at a time.
+ */
+public class SetupCheck
+{
+    // Decides if a setup that passed the fills can be won, or null to accept every such setup.
+    private final Predicate<Model> solver;
+
+    // For every row of the board, as words of 64 cells: the cells the dog region and the pen region can grow over,
+    // and the cells they reached.
+    private long[] dogCells = new long[0];
+    private long[] penCells = new long[0];
+    private long[] dogRegion = new long[0];
+    private long[] penRegion = new long[0];
+
+    private long nrChecked;
+    private long nrRejectedByFill;
+    private long nrRejectedBySolver;
+
+    // Creates a check made of the flood fills only.
+    public SetupCheck()
+    {
+        this(null);
+    }
+
+    // Creates a check that also runs the given solver on the setups that pass the flood fills. The solver must leave
+    // the model in the state it was given, as a dog planner does.
+    public SetupCheck(Predicate<Model> solver)
+    {
+        this.solver = solver;
+    }
+
+    // Returns true if the game set up in the given model looks playable.
+    public boolean accepts(Model model)
+    {
+        nrChecked++;
+        if (!passesFills(model))
+        {
+            nrRejectedByFill++;
+            return false;
+        }
+        if (solver != null && !solver.test(model))
+        {
+            nrRejectedBySolver++;
+            return false;
+        }
+        return true;
+    }
+
+    // Fills the regions of the dog and of the pen, and returns true if every sheep is next to both.
+    private boolean passesFills(Model model)
+    {
+        Board board = model.getBoard();
+        int nrBoardRows = board.getNrRows();
+        int nrBoardCols = board.getNrCols();
+        int nrWords = (nrBoardCols + 63) >>> 6;
+        if (dogCells.length < nrBoardRows * nrWords)
+        {
+            dogCells = new long[nrBoardRows * nrWords];
+            penCells = new long[nrBoardRows * nrWords];
+            dogRegion = new long[nrBoardRows * nrWords];
+            penRegion = new long[nrBoardRows * nrWords];
+        }
+
+        // The dog walks over grass only, and starts from its own cell. The pen region starts from the pen cells
+        // and grows over grass and the cell of the dog, which it leaves as the sheep come.
+        for (int i = 0; i < nrBoardRows; i++)
+        {
+            for (int w = 0; w < nrWords; w++)
+            {
+                long grass = board.rowMask(i, w << 6, Animals.GRASS_CELL_ID);
+                long pen = board.rowMask(i, w << 6, Animals.PEN_CELL_ID);
+                dogCells[i * nrWords + w] = grass;
+                penCells[i * nrWords + w] = grass | pen;
+                dogRegion[i * nrWords + w] = 0;
+                penRegion[i * nrWords + w] = pen;
+            }
+        }
+        int dogRow = model.getDog().getRow();
+        int dogCol = model.getDog().getCol();
+        dogRegion[dogRow * nrWords + (dogCol >>> 6)] |= 1L << dogCol;
+        penCells[dogRow * nrWords + (dogCol >>> 6)] |= 1L << dogCol;
+        fill(dogRegion, dogCells, nrBoardRows, nrWords);
+        // When the dog region touches the pen, the pen region grows over all of it, so a sheep next to the dog
+        // region is next to the pen region too and the second fill can be left out.
+        boolean penNextToDog = touches(dogRegion, penRegion, nrBoardRows, nrWords);
+        if (!penNextToDog)
+        {
+            fill(penRegion, penCells, nrBoardRows, nrWords);
+        }
+
+        for (Sheep sheep : model.getSheep())
+        {
+            if (!sheep.isInPen() && !(isNextTo(dogRegion, sheep.getRow(), sheep.getCol(), nrBoardRows, nrBoardCols,
+                    nrWords) && (penNextToDog
+                    || isNextTo(penRegion, sheep.getRow(), sheep.getCol(), nrBoardRows, nrBoardCols, nrWords))))
+            {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    // Grows the region over the given cells until it reaches every cell connected to it. The rows are swept down
+    // and up in turn, each row taking the cells below or above the region in the row before it and filling them
+    // along the row. A sweep leaves the region closed in its direction, so once a sweep adds nothing the region is
+    // closed in both.
+    private static void fill(long[] region, long[] cells, int nrRows, int nrWords)
+    {
+        for (int i = 0; i < nrRows; i++)
+        {
+            fillRow(region, cells, i * nrWords, nrWords);
+        }
+        boolean firstSweep = true;
+        boolean down = true;
+        while (true)
+        {
+            boolean changed = false;
+            if (down)
+            {
+                for (int i = 1; i < nrRows; i++)
+                {
+                    changed |= growRow(region, cells, i * nrWords, (i - 1) * nrWords, nrWords);
+                }
+            }
+            else
+            {
+                for (int i = nrRows - 2; i >= 0; i--)
+                {
+                    changed |= growRow(region, cells, i * nrWords, (i + 1) * nrWords, nrWords);
+                }
+            }
+            if (!changed && !firstSweep)
+            {
+                return;
+            }
+            firstSweep = false;
+            down = !down;
+        }
+    }
+
+    // Adds to the row starting at the given word the cells of the row next to it that are in the region,
+    // fills them along the row, and returns true if the row changed.
+    private static boolean growRow(long[] region, long[] cells, int row, int nextRow, int nrWords)
+    {
+        boolean grown = false;
+        for (int w = 0; w < nrWords; w++)
+        {
+            long added = region[nextRow + w] & cells[row + w] & ~region[row + w];
+            if (added != 0)
+            {
+                region[row + w] |= added;
+                grown = true;
+            }
+        }
+        if (grown)
+        {
+            fillRow(region, cells, row, nrWords);
+        }
+        return grown;
+    }
+
+    // Fills the region along the row starting at the given word: every run of cells of the row holding a cell
+    // of the region joins the region. The words are passed left to right and then right to left, carrying
+    // the region across their ends.
+    private static void fillRow(long[] region, long[] cells, int row, int nrWords)
+    {
+        if (nrWords == 1)
+        {
+            if (region[row] != 0)
+            {
+                region[row] = fillWord(region[row], cells[row]);
+            }
+            return;
+        }
+        for (int w = 0; w < nrWords; w++)
+        {
+            long seeds = region[row + w];
+            if (w > 0 && region[row + w - 1] < 0)
+            {
+                seeds |= cells[row + w] & 1L;
+            }
+            region[row + w] = fillWord(seeds, cells[row + w]);
+        }
+        for (int w = nrWords - 2; w >= 0; w--)
+        {
+            if ((region[row + w + 1] & 1L) != 0 && cells[row + w] < 0)
+            {
+                region[row + w] = fillWord(region[row + w] | Long.MIN_VALUE, cells[row + w]);
+            }
+        }
+    }
+
+    // Returns the seeds with every cell of the given cells reachable from them along the word, in both directions,
+    // by doubling the distance covered at each step. The seeds need not be part of the cells.
+    private static long fillWord(long seeds, long cells)
+    {
+        long up = seeds | (cells & (seeds << 1));
+        long upCells = cells & (cells << 1);
+        up |= upCells & (up << 2);
+        upCells &= upCells << 2;
+        up |= upCells & (up << 4);
+        upCells &= upCells << 4;
+        up |= upCells & (up << 8);
+        upCells &= upCells << 8;
+        up |= upCells & (up << 16);
+        upCells &= upCells << 16;
+        up |= upCells & (up << 32);
+
+        long down = seeds | (cells & (seeds >>> 1));
+        long downCells = cells & (cells >>> 1);
+        down |= downCells & (down >>> 2);
+        downCells &= downCells >>> 2;
+        down |= downCells & (down >>> 4);
+        downCells &= downCells >>> 4;
+        down |= downCells & (down >>> 8);
+        downCells &= downCells >>> 8;
+        down |= downCells & (down >>> 16);
+        downCells &= downCells >>> 16;
+        down |= downCells & (down >>> 32);
+        return up | down;
+    }
+
+    // Returns true if a cell of the other cells is next to a cell of the region. Cells next to each other across
+    // the ends of two words are not looked at, which can only make it return false.
+    private static boolean touches(long[] region, long[] otherCells, int nrRows, int nrWords)
+    {
+        for (int i = 0; i < nrRows; i++)
+        {
+            for (int w = 0; w < nrWords; w++)
+            {
+                long word = region[i * nrWords + w];
+                long near = word | (word << 1) | (word >>> 1);
+                if (i > 0)
+                {
+                    near |= region[(i - 1) * nrWords + w];
+                }
+                if (i < nrRows - 1)
+                {
+                    near |= region[(i + 1) * nrWords + w];
+                }
+                if ((near & otherCells[i * nrWords + w]) != 0)
+                {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    // Returns true if a cell next to the given cell is in the region.
+    private static boolean isNextTo(long[] region, int row, int col, int nrRows, int nrCols, int nrWords)
+    {
+        return (row > 0 && isIn(region, row - 1, col, nrWords))
+                || (row < nrRows - 1 && isIn(region, row + 1, col, nrWords))
+                || (col > 0 && isIn(region, row, col - 1, nrWords))
+                || (col < nrCols - 1 && isIn(region, row, col + 1, nrWords));
+    }
+
+    // Returns true if the given cell is in the region.
+    private static boolean isIn(long[] region, int row, int col, int nrWords)
+    {
+        return (region[row * nrWords + (col >>> 6)] & (1L << col)) != 0;
+    }
+
+    // Getter of number of setups checked.
+    public long getNrChecked()
+    {
+        return nrChecked;
+    }
+
+    // Getter of number of setups rejected because a sheep was cut off from the dog or from the pen.
+    public long getNrRejectedByFill()
+    {
+        return nrRejectedByFill;
+    }
+
+    // Getter of number of setups that passed the flood fills but were rejected by the solver.
+    public long getNrRejectedBySolver()
+    {
+        return nrRejectedBySolver;
+    }
+}
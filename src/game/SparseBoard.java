@@ -0,0 +1,168 @@
+package game;
+
+import animals.Animals;
+
+import java.nio.ByteBuffer;
+import java.util.Objects;
+
+/**
+ * This class is a board that keeps only the cells holding an animal, so its size does not depend on the number
+ * of cells. The pen is a rectangle given by its corners, every other cell outside the animals is grass, and
+ * the cells that differ from that are kept in a map from cell to type. Reading or changing a cell costs a lookup
+ * in the map, so a field of millions of rows and columns with a few thousand animals fits in little memory.
+ * Writing the board cell by cell still costs its number of cells.
+ */
+public class SparseBoard extends Board
+{
+    private final CellMap cells;
+    // Rows and columns of the pen, or -1 while there is no pen.
+    private int firstPenRow = -1;
+    private int lastPenRow = -1;
+    private int firstPenCol = -1;
+    private int lastPenCol = -1;
+
+    // Creates a board with the given dimensions, where all cells are grass.
+    public SparseBoard(int nrRows, int nrCols)
+    {
+        super(nrRows, nrCols);
+        this.cells = new CellMap(16);
+    }
+
+    @Override
+    // Makes the given rectangle of cells the pen, keeping only its corners. Cells of the map that it covers keep
+    // their type, and cells of the old pen that it does not cover become grass.
+    public void placePen(int firstPenRow, int firstPenCol, int nrPenRows, int nrPenCols)
+    {
+        Objects.checkFromIndexSize(firstPenRow, nrPenRows, getNrRows());
+        Objects.checkFromIndexSize(firstPenCol, nrPenCols, getNrCols());
+        this.firstPenRow = firstPenRow;
+        this.lastPenRow = firstPenRow + nrPenRows - 1;
+        this.firstPenCol = firstPenCol;
+        this.lastPenCol = firstPenCol + nrPenCols - 1;
+    }
+
+    @Override
+    // Returns the field of the rectangle of the pen, which needs no table.
+    public PenDistanceField buildPenDistanceField()
+    {
+        return new PenDistanceField(firstPenRow, lastPenRow, firstPenCol, lastPenCol);
+    }
+
+    @Override
+    // A sparse board only keeps the cells holding an animal.
+    public boolean keepsEveryCell()
+    {
+        return false;
+    }
+
+    @Override
+    // Returns the type of the given cell, or OFF_BOARD_ID if it is outside the board.
+    public byte get(int row, int col)
+    {
+        if (Integer.compareUnsigned(row, getNrRows()) >= 0 || Integer.compareUnsigned(col, getNrCols()) >= 0)
+        {
+            return OFF_BOARD_ID;
+        }
+        return (byte) cells.get(Board.cell(row, col), backgroundOf(row, col));
+    }
+
+    @Override
+    // Returns the type of the given cell. Any cell can be read, as the bounds are checked anyway.
+    public byte getNear(int row, int col)
+    {
+        return get(row, col);
+    }
+
+    @Override
+    // Changes the type of the given cell. Throws an IndexOutOfBoundsException if it is outside the board.
+    public void set(int row, int col, byte value)
+    {
+        Objects.checkIndex(row, getNrRows());
+        Objects.checkIndex(col, getNrCols());
+        if (value == backgroundOf(row, col))
+        {
+            cells.remove(Board.cell(row, col));
+        }
+        else
+        {
+            cells.put(Board.cell(row, col), value);
+        }
+    }
+
+    @Override
+    // Makes every cell and the pen of this board the same as the given board, which must be a sparse board
+    // with the same dimensions.
+    public void copyFrom(Board other)
+    {
+        checkSameKind(other, SparseBoard.class);
+        SparseBoard sparseOther = (SparseBoard) other;
+        cells.copyFrom(sparseOther.cells);
+        firstPenRow = sparseOther.firstPenRow;
+        lastPenRow = sparseOther.lastPenRow;
+        firstPenCol = sparseOther.firstPenCol;
+        lastPenCol = sparseOther.lastPenCol;
+    }
+
+    @Override
+    // Returns a new board with the same dimensions, pen and cells as this one.
+    public Board copy()
+    {
+        SparseBoard copy = new SparseBoard(getNrRows(), getNrCols());
+        copy.copyFrom(this);
+        return copy;
+    }
+
+    @Override
+    // Same as rowMask of a board, reading the cells one at a time.
+    long rowMask(int row, int firstCol, byte cellType)
+    {
+        int nrMaskCols = Math.min(64, getNrCols() - firstCol);
+        long mask = 0;
+        for (int k = 0; k < nrMaskCols; k++)
+        {
+            mask |= (get(row, firstCol + k) == cellType ? 1L : 0L) << k;
+        }
+        return mask;
+    }
+
+    @Override
+    // Writes the type of every cell of the board to the given buffer, row after row.
+    public void writeTo(ByteBuffer buffer)
+    {
+        for (int i = 0; i < getNrRows(); i++)
+        {
+            for (int j = 0; j < getNrCols(); j++)
+            {
+                buffer.put(get(i, j));
+            }
+        }
+    }
+
+    @Override
+    // Reads the type of every cell of the board from the given buffer, as written by writeTo. The pen is not
+    // changed, so the state must be of a board with the same pen.
+    public void readFrom(ByteBuffer buffer)
+    {
+        cells.clear();
+        for (int i = 0; i < getNrRows(); i++)
+        {
+            for (int j = 0; j < getNrCols(); j++)
+            {
+                set(i, j, buffer.get());
+            }
+        }
+    }
+
+    // Returns the number of cells whose type differs from the pen or the grass, which are the cells kept.
+    public int getNrKeptCells()
+    {
+        return cells.size();
+    }
+
+    // Returns the type of the given cell when the map does not hold it: pen inside the pen, grass elsewhere.
+    private byte backgroundOf(int row, int col)
+    {
+        return row >= firstPenRow && row <= lastPenRow && col >= firstPenCol && col <= lastPenCol
+                ? Animals.PEN_CELL_ID : Animals.GRASS_CELL_ID;
+    }
+}
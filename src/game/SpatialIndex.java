@@ -0,0 +1,585 @@
+package game;
+
+import java.util.Arrays;
+
+/**
+ * This class keeps the positions of animals on the board in a uniform grid of buckets,
+ * so the nearest animal to a cell can be found by looking only at the buckets around that cell.
+ * Positions are stored as cells, as made by Board.cell.
+ * A sparse index only keeps the buckets holding a cell, found through a map from bucket to bucket number,
+ * so it fits boards of any size. It also keeps which of the blocks of 2 by 2 buckets hold a cell, which blocks
+ * of 2 by 2 such blocks do and so on up to a block covering the board, and searches these blocks nearest first,
+ * so an animal far away is found by looking at a few blocks of each level rather than at every empty bucket
+ * in between.
+ */
+public class SpatialIndex
+{
+    // Number of rows and columns of the board covered by one bucket.
+    private static final int BUCKET_SIZE = 8;
+
+    // Initial capacity of a bucket, which grows when it is full.
+    private static final int INITIAL_BUCKET_CAPACITY = 4;
+
+    // A block on the heap holds its level in the top bits and its row and column in two fields of 29 bits below,
+    // which fit the buckets of any board.
+    private static final int BLOCK_INDEX_MASK = (1 << 29) - 1;
+
+    private final int nrBoardRows;
+    private final int nrBoardCols;
+    private final int nrBucketRows;
+    private final int nrBucketCols;
+    // Number of every bucket kept by a sparse index, or null for an index with every bucket of the grid.
+    private final CellMap bucketNumbers;
+    private long[][] buckets;
+    private int[] bucketSizes;
+    // Number of buckets used, and the numbers below it of the buckets a sparse index emptied, to be used again.
+    private int nrBuckets;
+    private int[] freeBuckets = new int[0];
+    private int nrFreeBuckets;
+    // Blocks of a sparse index holding a cell, by level, where a block of level l covers 2^l by 2^l buckets,
+    // each with a mask of which of its 4 blocks of the level below hold one. Bit 2 * (row & 1) + (col & 1) stands
+    // for the block of that row and column. Level 0 is left null, as its blocks are the buckets kept.
+    private final CellMap[] blockChildren;
+    // Blocks waiting to be searched by distance from the searched cell, as a binary heap.
+    private long[] heapDistances = new long[0];
+    private long[] heapBlocks = new long[0];
+    private int nrHeapBlocks;
+    private int size;
+
+    // Creates an empty index for a board with the given dimensions, with every bucket of the grid.
+    public SpatialIndex(int nrBoardRows, int nrBoardCols)
+    {
+        this(nrBoardRows, nrBoardCols, false);
+    }
+
+    // Creates an empty index for a board with the given dimensions, which keeps only the buckets holding a cell
+    // if it is sparse.
+    public SpatialIndex(int nrBoardRows, int nrBoardCols, boolean sparse)
+    {
+        this.nrBoardRows = nrBoardRows;
+        this.nrBoardCols = nrBoardCols;
+        this.nrBucketRows = Math.max(1, (nrBoardRows + BUCKET_SIZE - 1) / BUCKET_SIZE);
+        this.nrBucketCols = Math.max(1, (nrBoardCols + BUCKET_SIZE - 1) / BUCKET_SIZE);
+        if (sparse)
+        {
+            this.bucketNumbers = new CellMap(16);
+            this.buckets = new long[16][];
+            this.bucketSizes = new int[16];
+            this.nrBuckets = 0;
+            // The top level has a single block, covering every bucket.
+            int topLevel = 0;
+            while (((nrBucketRows - 1) >> topLevel) > 0 || ((nrBucketCols - 1) >> topLevel) > 0)
+            {
+                topLevel++;
+            }
+            this.blockChildren = new CellMap[topLevel + 1];
+            for (int level = 1; level <= topLevel; level++)
+            {
+                blockChildren[level] = new CellMap(16);
+            }
+        }
+        else
+        {
+            this.bucketNumbers = null;
+            this.buckets = new long[nrBucketRows * nrBucketCols][];
+            this.bucketSizes = new int[nrBucketRows * nrBucketCols];
+            this.nrBuckets = buckets.length;
+            this.blockChildren = null;
+        }
+    }
+
+    // Adds the given cell to the index.
+    public void add(int row, int col)
+    {
+        int bucket = bucketOf(row, col);
+        if (bucket < 0)
+        {
+            bucket = newBucket(row / BUCKET_SIZE, col / BUCKET_SIZE);
+        }
+        long[] cells = buckets[bucket];
+        if (cells == null)
+        {
+            cells = new long[INITIAL_BUCKET_CAPACITY];
+            buckets[bucket] = cells;
+        }
+        else if (bucketSizes[bucket] == cells.length)
+        {
+            cells = Arrays.copyOf(cells, cells.length * 2);
+            buckets[bucket] = cells;
+        }
+        cells[bucketSizes[bucket]++] = Board.cell(row, col);
+        size++;
+    }
+
+    // Removes the given cell from the index, if it is there.
+    public void remove(int row, int col)
+    {
+        int bucket = bucketOf(row, col);
+        if (bucket < 0)
+        {
+            return;
+        }
+        long[] cells = buckets[bucket];
+        long cell = Board.cell(row, col);
+        for (int i = 0; i < bucketSizes[bucket]; i++)
+        {
+            if (cells[i] == cell)
+            {
+                // The order inside a bucket does not matter, so the last cell takes the place of the removed one.
+                cells[i] = cells[--bucketSizes[bucket]];
+                size--;
+                if (bucketNumbers != null && bucketSizes[bucket] == 0)
+                {
+                    freeBucket(row / BUCKET_SIZE, col / BUCKET_SIZE, bucket);
+                }
+                return;
+            }
+        }
+    }
+
+    // Removes all cells from the index.
+    public void clear()
+    {
+        Arrays.fill(bucketSizes, 0, nrBuckets, 0);
+        if (bucketNumbers != null)
+        {
+            bucketNumbers.clear();
+            nrBuckets = 0;
+            nrFreeBuckets = 0;
+            for (int level = 1; level < blockChildren.length; level++)
+            {
+                blockChildren[level].clear();
+            }
+        }
+        size = 0;
+    }
+
+    // Copies all cells of the index, in no particular order, to the start of the given array,
+    // which must hold at least size() cells.
+    public void copyCells(long[] destination)
+    {
+        int k = 0;
+        for (int bucket = 0; bucket < nrBuckets; bucket++)
+        {
+            if (bucketSizes[bucket] > 0)
+            {
+                System.arraycopy(buckets[bucket], 0, destination, k, bucketSizes[bucket]);
+                k += bucketSizes[bucket];
+            }
+        }
+    }
+
+    // Returns a new index holding the same cells as this one.
+    public SpatialIndex copy()
+    {
+        SpatialIndex copy = new SpatialIndex(nrBoardRows, nrBoardCols, bucketNumbers != null);
+        copy.copyFrom(this);
+        return copy;
+    }
+
+    // Makes this index hold the same cells as the given one, which must be for a board with the same dimensions
+    // and be sparse if this one is.
+    public void copyFrom(SpatialIndex other)
+    {
+        if (other.nrBoardRows != nrBoardRows || other.nrBoardCols != nrBoardCols
+                || (other.bucketNumbers == null) != (bucketNumbers == null))
+        {
+            throw new IllegalArgumentException("indexes are for boards of different sizes or storage");
+        }
+        if (bucketNumbers != null)
+        {
+            bucketNumbers.copyFrom(other.bucketNumbers);
+            if (buckets.length < other.nrBuckets)
+            {
+                buckets = Arrays.copyOf(buckets, other.buckets.length);
+                bucketSizes = Arrays.copyOf(bucketSizes, other.buckets.length);
+            }
+            if (freeBuckets.length < other.nrFreeBuckets)
+            {
+                freeBuckets = new int[other.freeBuckets.length];
+            }
+            System.arraycopy(other.freeBuckets, 0, freeBuckets, 0, other.nrFreeBuckets);
+            nrFreeBuckets = other.nrFreeBuckets;
+            nrBuckets = other.nrBuckets;
+            for (int level = 1; level < blockChildren.length; level++)
+            {
+                blockChildren[level].copyFrom(other.blockChildren[level]);
+            }
+        }
+        for (int bucket = 0; bucket < nrBuckets; bucket++)
+        {
+            int bucketSize = other.bucketSizes[bucket];
+            if (bucketSize > 0)
+            {
+                if (buckets[bucket] == null || buckets[bucket].length < bucketSize)
+                {
+                    buckets[bucket] = new long[other.buckets[bucket].length];
+                }
+                // Most buckets hold a few cells, which a loop copies faster than System.arraycopy.
+                long[] source = other.buckets[bucket];
+                long[] destination = buckets[bucket];
+                for (int k = 0; k < bucketSize; k++)
+                {
+                    destination[k] = source[k];
+                }
+            }
+        }
+        System.arraycopy(other.bucketSizes, 0, bucketSizes, 0, nrBuckets);
+        size = other.size;
+    }
+
+    // Returns the number of cells in the index.
+    public int size()
+    {
+        return size;
+    }
+
+    // Returns the nearest cell to the given one in Euclidean distance, ignoring the given cell itself.
+    // Among cells at the same distance the first one in row-major order is returned, which is the cell
+    // a row by row scan of the board would find first. Returns -1 if there is no other cell in the index.
+    public long nearest(int row, int col)
+    {
+        return nearestWithin(row, col, Long.MAX_VALUE);
+    }
+
+    // Same as nearest, only looking for cells at a squared Euclidean distance of at most maxDistance, so the search
+    // stops at that distance. Returns -1 if there is no other cell in the index that near.
+    public long nearestWithin(int row, int col, long maxDistance)
+    {
+        if (blockChildren != null)
+        {
+            return nearestInBlocks(row, col, maxDistance, true);
+        }
+        int bucketRow = row / BUCKET_SIZE;
+        int bucketCol = col / BUCKET_SIZE;
+        int maxRing = Math.max(Math.max(bucketRow, nrBucketRows - 1 - bucketRow),
+                Math.max(bucketCol, nrBucketCols - 1 - bucketCol));
+
+        long nearestCell = -1;
+        long nearestDistance = maxDistance;
+        for (int ring = 0; ring <= maxRing; ring++)
+        {
+            // Every cell in a bucket of this ring is at least this far away along one axis, so once a cell closer
+            // than that has been found no further ring can hold a nearer one, or an equally near one.
+            if (ring > 0)
+            {
+                long gap = (long) (ring - 1) * BUCKET_SIZE + 1;
+                if (gap * gap > nearestDistance)
+                {
+                    break;
+                }
+            }
+
+            for (int i = bucketRow - ring; i <= bucketRow + ring; i++)
+            {
+                if (i < 0 || i >= nrBucketRows)
+                {
+                    continue;
+                }
+                // Rows at the edge of the ring are visited entirely, the rest only at their two ends.
+                int step = (i == bucketRow - ring || i == bucketRow + ring) ? 1 : Math.max(1, 2 * ring);
+                for (int j = bucketCol - ring; j <= bucketCol + ring; j += step)
+                {
+                    if (j < 0 || j >= nrBucketCols)
+                    {
+                        continue;
+                    }
+                    int bucket = bucketAt(i, j);
+                    long[] cells = buckets[bucket];
+                    for (int k = 0; k < bucketSizes[bucket]; k++)
+                    {
+                        long cell = cells[k];
+                        long dRow = Board.rowOf(cell) - row;
+                        long dCol = Board.colOf(cell) - col;
+                        long distance = dRow * dRow + dCol * dCol;
+                        // A cell at maxDistance itself is found too, before any cell has been.
+                        if (distance != 0 && (distance < nearestDistance || (distance == nearestDistance
+                                && (nearestCell == -1 || cell < nearestCell))))
+                        {
+                            nearestCell = cell;
+                            nearestDistance = distance;
+                        }
+                    }
+                }
+            }
+        }
+        return nearestCell;
+    }
+
+    // Returns true if a cell of the index, including the given cell itself, is at a squared Euclidean distance
+    // of at most maxDistance from the given cell.
+    public boolean anyWithin(int row, int col, long maxDistance)
+    {
+        if (blockChildren != null)
+        {
+            return nearestInBlocks(row, col, maxDistance, false) != -1;
+        }
+        int bucketRow = row / BUCKET_SIZE;
+        int bucketCol = col / BUCKET_SIZE;
+        int maxRing = Math.max(Math.max(bucketRow, nrBucketRows - 1 - bucketRow),
+                Math.max(bucketCol, nrBucketCols - 1 - bucketCol));
+
+        for (int ring = 0; ring <= maxRing; ring++)
+        {
+            // Every cell in a bucket of this ring is at least this far away along one axis.
+            if (ring > 0)
+            {
+                long gap = (long) (ring - 1) * BUCKET_SIZE + 1;
+                if (gap * gap > maxDistance)
+                {
+                    break;
+                }
+            }
+
+            for (int i = bucketRow - ring; i <= bucketRow + ring; i++)
+            {
+                if (i < 0 || i >= nrBucketRows)
+                {
+                    continue;
+                }
+                int step = (i == bucketRow - ring || i == bucketRow + ring) ? 1 : Math.max(1, 2 * ring);
+                for (int j = bucketCol - ring; j <= bucketCol + ring; j += step)
+                {
+                    if (j < 0 || j >= nrBucketCols)
+                    {
+                        continue;
+                    }
+                    int bucket = bucketAt(i, j);
+                    long[] cells = buckets[bucket];
+                    for (int k = 0; k < bucketSizes[bucket]; k++)
+                    {
+                        long dRow = Board.rowOf(cells[k]) - row;
+                        long dCol = Board.colOf(cells[k]) - col;
+                        if (dRow * dRow + dCol * dCol <= maxDistance)
+                        {
+                            return true;
+                        }
+                    }
+                }
+            }
+        }
+        return false;
+    }
+
+    // Returns the nearest cell of a sparse index to the given one at a squared Euclidean distance of at most
+    // maxDistance, skipping the given cell itself if asked to, with ties broken as by nearest, or -1 if there is
+    // none. The blocks holding a cell are taken from a heap nearest first, and a block is split into its 4 blocks
+    // of the level below until the buckets are reached, so the search stops as soon as the next block is further
+    // than the nearest cell found. It starts with the blocks within maxDistance of the lowest level whose blocks
+    // are as wide as that distance both ways, which is the top block for a search without a limit.
+    private long nearestInBlocks(int row, int col, long maxDistance, boolean skipCell)
+    {
+        long nearestCell = -1;
+        long nearestDistance = maxDistance;
+        nrHeapBlocks = 0;
+        long radius = (long) Math.sqrt((double) maxDistance);
+        int startLevel = 0;
+        while (startLevel < blockChildren.length - 1 && ((long) BUCKET_SIZE << startLevel) <= 2 * radius)
+        {
+            startLevel++;
+        }
+        long blockSize = (long) BUCKET_SIZE << startLevel;
+        int firstBlockRow = (int) (Math.max(0, row - radius) / blockSize);
+        int lastBlockRow = (int) (Math.min(nrBoardRows - 1, row + radius) / blockSize);
+        int firstBlockCol = (int) (Math.max(0, col - radius) / blockSize);
+        int lastBlockCol = (int) (Math.min(nrBoardCols - 1, col + radius) / blockSize);
+        for (int i = firstBlockRow; i <= lastBlockRow; i++)
+        {
+            for (int j = firstBlockCol; j <= lastBlockCol; j++)
+            {
+                boolean used = startLevel == 0 ? bucketAt(i, j) >= 0
+                        : blockChildren[startLevel].contains(Board.cell(i, j));
+                long distance = distanceToBlock(row, col, startLevel, i, j);
+                if (used && distance <= maxDistance)
+                {
+                    pushBlock(distance, startLevel, i, j);
+                }
+            }
+        }
+        while (nrHeapBlocks > 0)
+        {
+            long blockDistance = heapDistances[0];
+            long block = heapBlocks[0];
+            popBlock();
+            // Blocks as far as the nearest cell are still searched, as they may hold a cell first in row-major order.
+            if (blockDistance > nearestDistance)
+            {
+                break;
+            }
+            int level = (int) (block >>> 58);
+            int blockRow = (int) (block >>> 29) & BLOCK_INDEX_MASK;
+            int blockCol = (int) block & BLOCK_INDEX_MASK;
+            if (level == 0)
+            {
+                int bucket = bucketAt(blockRow, blockCol);
+                long[] cells = buckets[bucket];
+                for (int k = 0; k < bucketSizes[bucket]; k++)
+                {
+                    long cell = cells[k];
+                    long dRow = Board.rowOf(cell) - row;
+                    long dCol = Board.colOf(cell) - col;
+                    long distance = dRow * dRow + dCol * dCol;
+                    if ((distance != 0 || !skipCell) && distance <= nearestDistance
+                            && (nearestCell == -1 || distance < nearestDistance || cell < nearestCell))
+                    {
+                        nearestCell = cell;
+                        nearestDistance = distance;
+                    }
+                }
+                continue;
+            }
+            int children = blockChildren[level].get(Board.cell(blockRow, blockCol), 0);
+            for (int child = 0; child < 4; child++)
+            {
+                if ((children & (1 << child)) != 0)
+                {
+                    int i = 2 * blockRow + (child >> 1);
+                    int j = 2 * blockCol + (child & 1);
+                    long distance = distanceToBlock(row, col, level - 1, i, j);
+                    if (distance <= nearestDistance)
+                    {
+                        pushBlock(distance, level - 1, i, j);
+                    }
+                }
+            }
+        }
+        return nearestCell;
+    }
+
+    // Returns the squared Euclidean distance from the given cell to the nearest cell of the given block.
+    private static long distanceToBlock(int row, int col, int level, int blockRow, int blockCol)
+    {
+        long blockSize = (long) BUCKET_SIZE << level;
+        long firstRow = blockRow * blockSize;
+        long firstCol = blockCol * blockSize;
+        long dRow = row < firstRow ? firstRow - row : Math.max(0, row - (firstRow + blockSize - 1));
+        long dCol = col < firstCol ? firstCol - col : Math.max(0, col - (firstCol + blockSize - 1));
+        return dRow * dRow + dCol * dCol;
+    }
+
+    // Marks the given bucket of a sparse index as holding a cell or not in the block above it, and goes on up
+    // for as long as a block becomes used or empty with it, which the blocks above have to know too.
+    private void markBucketUsed(int bucketRow, int bucketCol, boolean used)
+    {
+        int blockRow = bucketRow;
+        int blockCol = bucketCol;
+        for (int level = 1; level < blockChildren.length; level++)
+        {
+            int bit = 1 << (((blockRow & 1) << 1) | (blockCol & 1));
+            blockRow >>= 1;
+            blockCol >>= 1;
+            long block = Board.cell(blockRow, blockCol);
+            int children = blockChildren[level].get(block, 0);
+            int newChildren = used ? children | bit : children & ~bit;
+            if (newChildren == 0)
+            {
+                blockChildren[level].remove(block);
+            }
+            else
+            {
+                blockChildren[level].put(block, newChildren);
+            }
+            if ((children == 0) == (newChildren == 0))
+            {
+                return;
+            }
+        }
+    }
+
+    // Adds the given block to the heap, at the given distance.
+    private void pushBlock(long distance, int level, int blockRow, int blockCol)
+    {
+        if (nrHeapBlocks == heapDistances.length)
+        {
+            heapDistances = Arrays.copyOf(heapDistances, Math.max(16, 2 * nrHeapBlocks));
+            heapBlocks = Arrays.copyOf(heapBlocks, heapDistances.length);
+        }
+        long block = ((long) level << 58) | ((long) blockRow << 29) | blockCol;
+        int k = nrHeapBlocks++;
+        while (k > 0 && heapDistances[(k - 1) / 2] > distance)
+        {
+            heapDistances[k] = heapDistances[(k - 1) / 2];
+            heapBlocks[k] = heapBlocks[(k - 1) / 2];
+            k = (k - 1) / 2;
+        }
+        heapDistances[k] = distance;
+        heapBlocks[k] = block;
+    }
+
+    // Removes the nearest block from the heap.
+    private void popBlock()
+    {
+        long distance = heapDistances[--nrHeapBlocks];
+        long block = heapBlocks[nrHeapBlocks];
+        int k = 0;
+        while (2 * k + 1 < nrHeapBlocks)
+        {
+            int child = 2 * k + 1;
+            if (child + 1 < nrHeapBlocks && heapDistances[child + 1] < heapDistances[child])
+            {
+                child++;
+            }
+            if (heapDistances[child] >= distance)
+            {
+                break;
+            }
+            heapDistances[k] = heapDistances[child];
+            heapBlocks[k] = heapBlocks[child];
+            k = child;
+        }
+        heapDistances[k] = distance;
+        heapBlocks[k] = block;
+    }
+
+    // Returns the number of the bucket of the given row and column of buckets, or -1 if a sparse index keeps none.
+    private int bucketAt(int bucketRow, int bucketCol)
+    {
+        if (bucketNumbers == null)
+        {
+            return bucketRow * nrBucketCols + bucketCol;
+        }
+        return bucketNumbers.get(Board.cell(bucketRow, bucketCol), -1);
+    }
+
+    // Returns the number of the bucket holding the given cell, or -1 if a sparse index keeps none.
+    private int bucketOf(int row, int col)
+    {
+        return bucketAt(row / BUCKET_SIZE, col / BUCKET_SIZE);
+    }
+
+    // Keeps the bucket of the given row and column of buckets in a sparse index, and returns its number.
+    private int newBucket(int bucketRow, int bucketCol)
+    {
+        int bucket;
+        if (nrFreeBuckets > 0)
+        {
+            bucket = freeBuckets[--nrFreeBuckets];
+        }
+        else
+        {
+            if (nrBuckets == buckets.length)
+            {
+                buckets = Arrays.copyOf(buckets, buckets.length * 2);
+                bucketSizes = Arrays.copyOf(bucketSizes, bucketSizes.length * 2);
+            }
+            bucket = nrBuckets++;
+            // A copy of another index may have left a size in the slots past its buckets.
+            bucketSizes[bucket] = 0;
+        }
+        bucketNumbers.put(Board.cell(bucketRow, bucketCol), bucket);
+        markBucketUsed(bucketRow, bucketCol, true);
+        return bucket;
+    }
+
+    // Stops keeping the given empty bucket of a sparse index, so its number can be used again.
+    private void freeBucket(int bucketRow, int bucketCol, int bucket)
+    {
+        bucketNumbers.remove(Board.cell(bucketRow, bucketCol));
+        markBucketUsed(bucketRow, bucketCol, false);
+        if (nrFreeBuckets == freeBuckets.length)
+        {
+            freeBuckets = Arrays.copyOf(freeBuckets, Math.max(16, freeBuckets.length * 2));
+        }
+        freeBuckets[nrFreeBuckets++] = bucket;
+    }
+}
@@ -1,28 +1,85 @@
 package game;
 
+import interfaces.InterfaceInputSource;
 import interfaces.InterfaceModel;
 import interfaces.InterfaceView;
 import util.Util;
-import animals.Animals;
+
+import java.io.BufferedWriter;
+import java.io.FileDescriptor;
+import java.io.FileOutputStream;
+import java.io.OutputStreamWriter;
+import java.io.PrintWriter;
 
 /**
- * This class implements InterfaceView and is used to interact with the player.
+ * This class implements InterfaceView and InterfaceInputSource, and is used to interact with a player at a terminal.
+ * Everything is written to a buffered stream that is flushed once per message or board, and the board is built
+ * in a single pass into a reusable array of characters. In diff mode the board stays at the top of the terminal
+ * and only the cells that changed since the last board are redrawn, using ANSI cursor moves. The messages of a turn
+ * are kept under the board while it is redrawn, and are cleared once the player enters the next move.
  */
-public class TextView implements InterfaceView
+public class TextView implements InterfaceView, InterfaceInputSource
 {
+    // Character shown for each cell type, indexed by the type. Recently moved sheep are shown as sheep.
+    private static final char[] CELL_CHARS = {'_', 'D', 'S', 'P', 'S'};
+
+    // ANSI sequences to clear the terminal and to clear it from the cursor to the end.
+    private static final String CLEAR_SCREEN = "\u001b[H\u001b[2J";
+    private static final String CLEAR_TO_END = "\u001b[J";
+    // ANSI sequences to save the position of the cursor and to go back to it.
+    private static final String SAVE_CURSOR = "\u001b7";
+    private static final String RESTORE_CURSOR = "\u001b8";
+
+    // Title of the board, drawn on the line above it.
+    private static final String BOARD_TITLE = "-GAME STATE-";
+
+    // Buffered stream to the console, flushed at the end of every display and before every request of input.
+    private final PrintWriter out = new PrintWriter(
+            new BufferedWriter(new OutputStreamWriter(new FileOutputStream(FileDescriptor.out)), 1 << 16), false);
+    private final boolean diffMode;
+
+    // The last board drawn, row after row, each row ending with a new line, and the model it was drawn from.
+    private char[] frame = new char[0];
+    private char[] lastFrame = new char[0];
+    private int frameLength;
+    private InterfaceModel lastModel;
+    private int lastNrBoardRows;
+    private int lastNrBoardCols;
+    // Buffer the ANSI diff of the last two boards is written to.
+    private final StringBuilder diff = new StringBuilder();
+    // True in diff mode once the player entered a move, until the messages of the last turn under the board
+    // are cleared for the first message of the next turn.
+    private boolean clearMessages;
+
+    // The constructor creates a view that prints every board in full.
+    public TextView()
+    {
+        this(false);
+    }
+
+    // The constructor creates a view that prints every board in full, or in diff mode redraws only the changed cells.
+    public TextView(boolean diffMode)
+    {
+        this.diffMode = diffMode;
+    }
+
     @Override
     // Displays welcome message.
     public void displayWelcomeMessage()
     {
-        System.out.println("Welcome to a game of Sheepdog trials!");
+        out.println("Welcome to a game of Sheepdog trials!");
+        out.flush();
     }
 
     @Override
     // Requests a move by the user and returns a single char containing the move entered.
     public char requestMove()
     {
-        System.out.println("Please enter your next move:");
-        return Util.readChar();
+        out.println("Please enter your next move:");
+        out.flush();
+        char move = Util.readChar();
+        clearMessages = diffMode && lastModel != null;
+        return move;
     }
 
     @Override
@@ -30,12 +87,13 @@ public class TextView implements InterfaceView
     public char requestMenuSelection()
     {
         // Print options of menu.
-        System.out.println("\n-------- MENU --------");
-        System.out.println("(1) Start a new game with a fixed setup.");
-        System.out.println("(2) Start a new game with a random setup.");
+        out.println("\n-------- MENU --------");
+        out.println("(1) Start a new game with a fixed setup.");
+        out.println("(2) Start a new game with a random setup.");
 
         // Requests and returns user decision input.
-        System.out.print("Select an option and press enter or use any other key to quit:");
+        out.print("Select an option and press enter or use any other key to quit:");
+        out.flush();
         return Util.readChar();
     }
 
@@ -43,41 +101,48 @@ public class TextView implements InterfaceView
     // Displays the state of the game.
     public void displayGameState(byte gameState)
     {
+        startMessages();
         switch (gameState) {
-            case InterfaceModel.GAME_IN_PROGRESS -> System.out.println("The game is in progress.");
-            case InterfaceModel.GAME_WON -> System.out.println("Victory! You won!\nSelect an option to " +
+            case InterfaceModel.GAME_IN_PROGRESS -> out.println("The game is in progress.");
+            case InterfaceModel.GAME_WON -> out.println("Victory! You won!\nSelect an option to " +
                     "play again.");
-            case InterfaceModel.CONCEDE_MOVE -> System.out.println("You conceded.\nSelect an option to " +
+            case InterfaceModel.CONCEDE_MOVE -> out.println("You conceded.\nSelect an option to " +
                     "play again.");
-            default -> System.out.println("Error: Unknown state of game");
+            default -> out.println("Error: Unknown state of game");
         }
+        out.flush();
     }
 
     @Override
     // Displays the move chosen by the player.
     public void displayChosenMove(char move)
     {
+        startMessages();
         if (move == 'w')
         {
-            System.out.println("The dog moved up.");
+            out.println("The dog moved up.");
         }
         else if (move == 's')
         {
-            System.out.println("The dog moved down.");
+            out.println("The dog moved down.");
         }
         else if (move == 'a')
         {
-            System.out.println("The dog moved left.");
+            out.println("The dog moved left.");
         }
         else if (move == 'd')
         {
-            System.out.println("The dog moved right.");
+            out.println("The dog moved right.");
         }
+        out.flush();
     }
     @Override
     // Displays an error message if the move of the player is rejected.
     public void displayRejectedMoveMessage(char move)
     {
+        // The messages before this one must be shown before it.
+        startMessages();
+        out.flush();
         System.err.println("The move '" + move + "' was rejected, please try again.");
         System.err.println("To move the dog up, enter 'w' and press enter. Use 's' for down, 'a' " +
                 "for left and 'd' for right. ");
@@ -86,6 +151,15 @@ public class TextView implements InterfaceView
         System.err.println();
     }
 
+    @Override
+    // Displays an error on the error stream, after the messages before it.
+    public void displayError(String message)
+    {
+        startMessages();
+        out.flush();
+        System.err.println(message);
+    }
+
     @Override
     // Displays the game's board.
     // "_" represents a grass cell
@@ -94,34 +168,136 @@ public class TextView implements InterfaceView
     // "P" represents a pen cell.
     public void displayBoard(InterfaceModel model)
     {
-        System.out.println("\n-GAME STATE-");
+        int nrBoardRows = model.getSettings().getNrBoardRows();
+        int nrBoardCols = model.getSettings().getNrBoardCols();
+        boolean sameBoard = model == lastModel && nrBoardRows == lastNrBoardRows && nrBoardCols == lastNrBoardCols;
 
+        // Keep the last board to compare with, and build the new one in the other array.
+        char[] swap = lastFrame;
+        lastFrame = frame;
+        frame = swap;
+        int lastFrameLength = frameLength;
+        fillFrame(model, nrBoardRows, nrBoardCols);
+
+        if (diffMode && sameBoard && lastFrameLength == frameLength)
+        {
+            writeChangedCells(nrBoardRows, nrBoardCols);
+        }
+        else
+        {
+            if (diffMode)
+            {
+                out.print(CLEAR_SCREEN);
+                out.println(BOARD_TITLE);
+                clearMessages = false;
+            }
+            else
+            {
+                out.println();
+                out.println(BOARD_TITLE);
+            }
+            out.write(frame, 0, frameLength);
+        }
+        out.flush();
+
+        lastModel = model;
+        lastNrBoardRows = nrBoardRows;
+        lastNrBoardCols = nrBoardCols;
+    }
+
+    @Override
+    // Displays the board after a turn. In diff mode, with the board of the same game on the terminal, only the cells
+    // the turn changed are redrawn, without reading the other cells of the model. Otherwise the board is displayed
+    // in full.
+    public void displayDelta(InterfaceModel model, int[] changes, int nrChanges)
+    {
         int nrBoardRows = model.getSettings().getNrBoardRows();
         int nrBoardCols = model.getSettings().getNrBoardCols();
+        if (!diffMode || model != lastModel || nrBoardRows != lastNrBoardRows || nrBoardCols != lastNrBoardCols)
+        {
+            displayBoard(model);
+            return;
+        }
 
-        for(int i=0; i<nrBoardRows; i++)
+        // The frame is kept up to date, so the next full board is compared with the board on the terminal.
+        diff.setLength(0);
+        diff.append(SAVE_CURSOR);
+        for (int k = 0; k < nrChanges; k++)
         {
+            int cell = changes[2 * k];
+            int cellType = changes[2 * k + 1];
+            int i = cell / nrBoardCols;
+            int j = cell - i * nrBoardCols;
+            char c = cellType >= 0 && cellType < CELL_CHARS.length ? CELL_CHARS[cellType] : '?';
+            if (frame[i * (nrBoardCols + 1) + j] != c)
+            {
+                frame[i * (nrBoardCols + 1) + j] = c;
+                diff.append("\u001b[").append(i + 2).append(';').append(j + 1).append('H').append(c);
+            }
+        }
+        diff.append(RESTORE_CURSOR);
+        out.append(diff);
+        out.flush();
+    }
 
+    // Writes the characters of every cell of the board to the frame in one pass, row after row.
+    private void fillFrame(InterfaceModel model, int nrBoardRows, int nrBoardCols)
+    {
+        frameLength = nrBoardRows * (nrBoardCols + 1);
+        if (frame.length < frameLength)
+        {
+            frame = new char[frameLength];
+        }
+        int k = 0;
+        for (int i = 0; i < nrBoardRows; i++)
+        {
             for (int j = 0; j < nrBoardCols; j++)
             {
-                if (model.getCellInfo(i, j) == Animals.GRASS_CELL_ID)
-                {
-                    System.out.print("_");
-                }
-                else if (model.getCellInfo(i, j) == Animals.DOG_ID)
-                {
-                    System.out.print("D");
-                }
-                else  if (model.getCellInfo(i, j) == Animals.SHEEP_ID)
+                byte cellType = model.getCellInfo(i, j);
+                frame[k++] = cellType >= 0 && cellType < CELL_CHARS.length ? CELL_CHARS[cellType] : '?';
+            }
+            frame[k++] = '\n';
+        }
+    }
+
+    // Redraws the cells that changed since the last board, which is at the top of the terminal under its title.
+    // Changed cells next to each other in a row are redrawn with one cursor move. The cursor is then put back
+    // where it was, so the messages under the board stay on the terminal and the next ones follow them.
+    private void writeChangedCells(int nrBoardRows, int nrBoardCols)
+    {
+        diff.setLength(0);
+        diff.append(SAVE_CURSOR);
+        for (int i = 0; i < nrBoardRows; i++)
+        {
+            int rowStart = i * (nrBoardCols + 1);
+            int j = 0;
+            while (j < nrBoardCols)
+            {
+                if (frame[rowStart + j] == lastFrame[rowStart + j])
                 {
-                    System.out.print("S");
+                    j++;
+                    continue;
                 }
-                else  if (model.getCellInfo(i, j) == Animals.PEN_CELL_ID)
+                // Terminal rows and columns start at 1, and the first row holds the title.
+                diff.append("\u001b[").append(i + 2).append(';').append(j + 1).append('H');
+                while (j < nrBoardCols && frame[rowStart + j] != lastFrame[rowStart + j])
                 {
-                    System.out.print("P");
+                    diff.append(frame[rowStart + j]);
+                    j++;
                 }
             }
-            System.out.println();
+        }
+        diff.append(RESTORE_CURSOR);
+        out.append(diff);
+    }
+
+    // Clears the messages of the last turn under the board in diff mode, before the first message of a new turn.
+    private void startMessages()
+    {
+        if (clearMessages)
+        {
+            out.print("\u001b[" + (lastNrBoardRows + 2) + ";1H" + CLEAR_TO_END);
+            clearMessages = false;
         }
     }
 
@@ -129,8 +305,10 @@ public class TextView implements InterfaceView
     // Displays the number of moves made by the player so far.
     public void displayMoveCount(int moveCount)
     {
-        System.out.println();
-        System.out.println("Number of moves: " + moveCount);
+        startMessages();
+        out.println();
+        out.println("Number of moves: " + moveCount);
+        out.flush();
     }
 
 }
\ No newline at end of file
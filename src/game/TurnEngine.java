@@ -0,0 +1,23 @@
+package game;
+
+/**
+ * The ways a model can move its sheep during a turn. All engines move the sheep one by one in row-major order
+ * of their cells at the start of the turn, so they give the same result for the same game.
+ */
+public enum TurnEngine
+{
+    // Sheep that moved are marked on the board with the updated sheep ID, which is changed back to the sheep ID
+    // once all sheep have moved.
+    IN_PLACE,
+
+    // The cells of the sheep at the start of the turn are read from a front buffer, and the cells they move to
+    // are written to a back buffer, which becomes the front buffer of the next turn. Sheep are written on the board
+    // with the sheep ID straight away, so there is no marker to clear.
+    DOUBLE_BUFFERED,
+
+    // The front buffer is split into bands of consecutive sheep, and each band is moved on its own copy of the board
+    // on a ForkJoinPool, as if the sheep of the earlier bands had not moved. The moves are then replayed in order
+    // on the board, and a sheep is moved again only if a cell it looked at was changed by an earlier sheep.
+    // Boards with few sheep are moved as DOUBLE_BUFFERED.
+    PARALLEL
+}
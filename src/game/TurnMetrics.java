@@ -0,0 +1,159 @@
+package game;
+
+import java.lang.management.ManagementFactory;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+import javax.management.JMException;
+import javax.management.ObjectName;
+
+/**
+ * Counters and timers of the work done by the turns of every model, to see where the time of a turn goes.
+ * They are only kept when the JVM is started with -Dsheepdog.metrics=true, and are then read through JMX
+ * as the MXBean sheepdog:type=TurnMetrics. The switch is a static final field, so when it is off the JIT drops
+ * the code that counts, and a turn costs what it costs without metrics. The counters are shared by the models
+ * of every thread, including the bands of a parallel turn, whose decisions are counted again for the sheep
+ * that take their turn again on the board.
+ */
+public final class TurnMetrics implements TurnMetricsMXBean
+{
+    // True if the metrics are kept.
+    public static final boolean ENABLED = Boolean.getBoolean("sheepdog.metrics");
+
+    static final LongAdder TURNS = new LongAdder();
+    static final LongAdder TURN_NANOS = new LongAdder();
+    static final LongAccumulator MAX_TURN_NANOS = new LongAccumulator(Math::max, 0);
+    static final LongAdder CELL_PROBES = new LongAdder();
+    static final LongAdder FLEE_DECISIONS = new LongAdder();
+    static final LongAdder FLOCK_DECISIONS = new LongAdder();
+    static final LongAdder RELUCTANCE_DECISIONS = new LongAdder();
+    static final LongAdder BLOCKED_MOVES = new LongAdder();
+    static final LongAdder BOARD_SCANS = new LongAdder();
+
+    // The metrics read through JMX, registered when the metrics are kept.
+    private static final TurnMetrics INSTANCE = new TurnMetrics();
+
+    static
+    {
+        if (ENABLED)
+        {
+            try
+            {
+                ManagementFactory.getPlatformMBeanServer().registerMBean(INSTANCE,
+                        new ObjectName("sheepdog:type=TurnMetrics"));
+            }
+            catch (JMException e)
+            {
+                System.err.println("The turn metrics cannot be read through JMX: " + e.getMessage());
+            }
+        }
+    }
+
+    // The metrics are only created once, as they are shared by every model.
+    private TurnMetrics()
+    {
+    }
+
+    // Returns the metrics, to read them without JMX.
+    public static TurnMetrics get()
+    {
+        return INSTANCE;
+    }
+
+    // Adds a turn of the sheep that took the given wall time in nanoseconds.
+    static void recordTurn(long nanos)
+    {
+        TURNS.increment();
+        TURN_NANOS.add(nanos);
+        MAX_TURN_NANOS.accumulate(nanos);
+    }
+
+    @Override
+    // Getter of the number of turns of the sheep.
+    public long getTurns()
+    {
+        return TURNS.sum();
+    }
+
+    @Override
+    // Getter of the wall time of all the turns, in nanoseconds.
+    public long getTurnNanos()
+    {
+        return TURN_NANOS.sum();
+    }
+
+    @Override
+    // Getter of the wall time of the longest turn, in nanoseconds.
+    public long getMaxTurnNanos()
+    {
+        return MAX_TURN_NANOS.get();
+    }
+
+    @Override
+    // Getter of the number of probes of a cell for animals.
+    public long getCellProbes()
+    {
+        return CELL_PROBES.sum();
+    }
+
+    @Override
+    // Getter of the number of decisions to flee from a dog.
+    public long getFleeDecisions()
+    {
+        return FLEE_DECISIONS.sum();
+    }
+
+    @Override
+    // Getter of the number of decisions to flock.
+    public long getFlockDecisions()
+    {
+        return FLOCK_DECISIONS.sum();
+    }
+
+    @Override
+    // Getter of the number of decisions to keep away from the pen.
+    public long getReluctanceDecisions()
+    {
+        return RELUCTANCE_DECISIONS.sum();
+    }
+
+    @Override
+    // Getter of the number of moves blocked by animals.
+    public long getBlockedMoves()
+    {
+        return BLOCKED_MOVES.sum();
+    }
+
+    @Override
+    // Getter of the number of passes over a board.
+    public long getBoardScans()
+    {
+        return BOARD_SCANS.sum();
+    }
+
+    @Override
+    // Sets every counter and timer back to zero.
+    public void reset()
+    {
+        TURNS.reset();
+        TURN_NANOS.reset();
+        MAX_TURN_NANOS.reset();
+        CELL_PROBES.reset();
+        FLEE_DECISIONS.reset();
+        FLOCK_DECISIONS.reset();
+        RELUCTANCE_DECISIONS.reset();
+        BLOCKED_MOVES.reset();
+        BOARD_SCANS.reset();
+    }
+
+    @Override
+    // Returns the metrics on one line, with the mean time of a turn.
+    public String toString()
+    {
+        long turns = getTurns();
+        return String.format("%d turns, %.1f us mean, %.1f us max, %d cell probes, %d flee, %d flock, "
+                        + "%d reluctance decisions, %d blocked moves, %d board scans", turns,
+                turns == 0 ? 0.0 : getTurnNanos() / 1e3 / turns, getMaxTurnNanos() / 1e3, getCellProbes(),
+                getFleeDecisions(), getFlockDecisions(), getReluctanceDecisions(), getBlockedMoves(),
+                getBoardScans());
+    }
+}
@@ -0,0 +1,29 @@
+package game;
+
+/**
+ * The counters and timers of TurnMetrics, as they are read through JMX.
+ */
+public interface TurnMetricsMXBean
+{
+    // Number of turns of the sheep, and their wall time in nanoseconds, in total and for the longest.
+    long getTurns();
+    long getTurnNanos();
+    long getMaxTurnNanos();
+
+    // Number of probes of a cell for animals.
+    long getCellProbes();
+
+    // Number of decisions of the sheep: to flee from a dog, to flock, and to keep away from the pen.
+    long getFleeDecisions();
+    long getFlockDecisions();
+    long getReluctanceDecisions();
+
+    // Number of moves of sheep that did not happen, as every cell the sheep tried held an animal.
+    long getBlockedMoves();
+
+    // Number of passes over all the cells or all the sheep of a board.
+    long getBoardScans();
+
+    // Sets every counter and timer back to zero.
+    void reset();
+}
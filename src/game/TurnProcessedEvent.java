@@ -0,0 +1,55 @@
+package game;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * Flight Recorder event of a turn of the sheep, lasting while they move, with how many moved and entered the pen.
+ * Turns are many, so their stack traces are not recorded.
+ */
+@Name("sheepdog.TurnProcessed")
+@Label("Turn Processed")
+@Category("Sheepdog Trials")
+@Description("The sheep took their turn")
+@StackTrace(false)
+class TurnProcessedEvent extends Event
+{
+    @Label("Board Rows")
+    int nrBoardRows;
+
+    @Label("Board Columns")
+    int nrBoardCols;
+
+    @Label("Sheep Moved")
+    int sheepMoved;
+
+    @Label("Sheep Penned")
+    int sheepPenned;
+
+    @Label("Sheep Left")
+    @Description("Sheep still outside the pen after the turn")
+    int sheepLeft;
+
+    @Label("Turn Engine")
+    String turnEngine;
+
+    // Ends the event and commits it with the given counts of the turn of the given model, if it is recorded.
+    void commit(Model model, int sheepMoved, int sheepPenned)
+    {
+        end();
+        if (shouldCommit())
+        {
+            nrBoardRows = model.getSettings().getNrBoardRows();
+            nrBoardCols = model.getSettings().getNrBoardCols();
+            this.sheepMoved = sheepMoved;
+            this.sheepPenned = sheepPenned;
+            sheepLeft = model.getNrSheepOutsidePen();
+            turnEngine = model.getTurnEngine().name();
+            commit();
+        }
+    }
+}
@@ -0,0 +1,21 @@
+package interfaces;
+
+/**
+ * The methods a dog policy must implement are defined in this interface.
+ * A dog policy plays the part of the player when games are simulated without a view, for one dog or for each
+ * dog of a game with several.
+ */
+public interface InterfaceDogPolicy {
+
+    // Returns the next move of the dog of the given number, its position in the dog list of the given model,
+    // using the same characters as the player ('w', 's', 'a', 'd' or 'o' to concede). The returned move must be
+    // accepted by the model's isMoveValid for that dog. The random source belongs to the game being played,
+    // so a policy must not keep any state between calls.
+    public char chooseMove(InterfaceModel model, int dogNumber, InterfaceRandomSource random);
+
+    // Returns the next move of the dog of the player, the first dog of the dog list.
+    public default char chooseMove(InterfaceModel model, InterfaceRandomSource random)
+    {
+        return chooseMove(model, 0, random);
+    }
+}
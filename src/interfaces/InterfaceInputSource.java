@@ -0,0 +1,13 @@
+package interfaces;
+
+/**
+ * Methods that must be implemented by a source of the choices of a player are defined in this interface.
+ * The controller asks its source for every choice, so the player can be a person at a terminal, a script or a bot.
+ */
+
+public interface InterfaceInputSource {
+
+    // Request input methods.
+    public char requestMenuSelection();
+    public char requestMove();
+}
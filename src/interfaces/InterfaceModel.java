@@ -1,5 +1,6 @@
 package interfaces;
 
+import util.Direction;
 import util.GameSettings;
 import animals.Sheep;
 import animals.Dog;
@@ -31,9 +32,17 @@ public interface InterfaceModel {
     // or if the player wants to concede.
     public boolean isMoveValid(char move);
 
+    // Returns if the given move of the dog of the given number, its position in the dog list, is valid,
+    // as isMoveValid does for the player's dog.
+    public boolean isMoveValid(int dogNumber, char move);
+
     // Implements the move passed by the player if it is valid.
     public void makeMove(char move);
 
+    // Implements the moves of a turn, one for each dog in the order of the dog list.
+    // A move that is no longer valid once the dogs before it moved is not made, and any 'o' concedes the game.
+    public void makeMoves(char[] moves);
+
     // Implements sheep behaviour such as running away from the dog, flocking when the dog is absent
     // and reluctance to enter pen.
     public void sheepBehaviour();
@@ -58,7 +67,7 @@ public interface InterfaceModel {
     public boolean isCellFreeOfAnimals(int rowToCheck, int colToCheck);
 
     // It makes the sheep move to the direction specified, if there is no animal, and it is inside the board there.
-    public void moveSheep(int sheepRow, int sheepCol, String direction);
+    public void moveSheep(int sheepRow, int sheepCol, Direction direction);
 
     // Returns true if all the sheep are in the pen. Otherwise, returns false.
     public boolean areAllSheepInPen();
@@ -73,12 +82,20 @@ public interface InterfaceModel {
     // It changes the type of the specific cell to the specified value.
     public void setCellInfo(int i, int j, byte value);
 
+    // Returns a 64-bit Zobrist hash of the dimensions and the cells of the board, including the dog and the sheep.
+    // Boards with the same cells have the same hash, and the hash is updated with every move instead of being
+    // computed from every cell.
+    public long stateHash();
+
     // Getter of dog.
     public Dog getDog();
 
     // Setter of dog.
     public void setDog(Dog dog);
 
+    // Getter of dog list, whose first dog is the dog of getDog.
+    public ArrayList<Dog> getDogs();
+
     // Getter of sheep list.
     public ArrayList<Sheep> getSheep();
 
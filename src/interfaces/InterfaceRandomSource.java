@@ -0,0 +1,31 @@
+package interfaces;
+
+/**
+ * The methods a source of random numbers must implement are defined in this interface.
+ * A model draws all its random numbers from the source it is given, so a game can be reproduced
+ * by giving it a source with the same seed.
+ */
+public interface InterfaceRandomSource {
+
+    // Returns a random int from origin (inclusive) to bound (exclusive).
+    // Throws an IllegalArgumentException if origin is not smaller than bound.
+    public int nextInt(int origin, int bound);
+
+    // Returns a random boolean.
+    public boolean nextBoolean();
+
+    // Returns a random long.
+    public long nextLong();
+
+    // Returns a new source whose numbers are independent of this one's, and advances this source.
+    // Splitting the same source in the same order always gives the same new sources, so each game or thread
+    // can be given its own source without sharing any state.
+    public InterfaceRandomSource split();
+
+    // Returns the state of the source. Setting it back with setState makes the source give the same numbers again,
+    // so the state can be saved with the rest of a game.
+    public long getState();
+
+    // Restores a state returned by getState.
+    public void setState(long state);
+}
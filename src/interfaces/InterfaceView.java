@@ -2,6 +2,7 @@ package interfaces;
 
 /**
  * Methods that must be implemented by a view are defined in this interface.
+ * The choices of the player are requested from an InterfaceInputSource instead.
  */
 
 public interface InterfaceView {
@@ -14,8 +15,10 @@ public interface InterfaceView {
     public void displayGameState(byte gameState);
     public void displayBoard(InterfaceModel model);
 
+    // Displays an error that does not stop the game, such as a replay of the game that can no longer be written.
+    public void displayError(String message);
 
-    // Request input methods.
-    public char requestMenuSelection();
-    public char requestMove();
+    // Displays the board after a turn from the cells the turn changed, given as pairs of the index of a cell,
+    // row * nrBoardCols + col, and its new type, in the order they changed. The first nrChanges pairs are changes.
+    public void displayDelta(InterfaceModel model, int[] changes, int nrChanges);
 }
@@ -0,0 +1,52 @@
+package main;
+
+import game.FixedModel;
+import game.RandomModel;
+import game.TurnMetrics;
+import simulation.BatchResult;
+import simulation.BatchSimulator;
+import simulation.RandomDogPolicy;
+import util.GameSettings;
+
+import java.util.concurrent.ForkJoinPool;
+
+/**
+ * This class plays a batch of games without a view and prints how fast they were played.
+ * Random setups place the given number of dogs, each moved by its own random policy; the fixed setup has one dog.
+ * With -Dsheepdog.metrics=true, the turn metrics of all the games are printed as well.
+ * Arguments: [fixed|random] [number of games] [move limit per game] [number of threads] [number of dogs].
+ */
+public class BatchSimulation
+{
+    // Parses the arguments, runs the batch and prints its report.
+    public static void main(String[] args)
+    {
+        boolean randomSetup = args.length < 1 || args[0].equals("random");
+        long nrGames = args.length < 2 ? 10000 : Long.parseLong(args[1]);
+        int maxMovesPerGame = args.length < 3 ? 1000 : Integer.parseInt(args[2]);
+        int nrThreads = args.length < 4 ? Runtime.getRuntime().availableProcessors() : Integer.parseInt(args[3]);
+        int nrDogs = args.length < 5 ? 1 : Integer.parseInt(args[4]);
+
+        GameSettings defaults = new GameSettings();
+        GameSettings settings = new GameSettings(defaults.getNrBoardRows(), defaults.getNrBoardCols(), nrDogs,
+                defaults.getNrSheep(), defaults.getNrPenRows(), defaults.getNrPenCols());
+        BatchSimulator simulator = randomSetup
+                ? new BatchSimulator(settings, RandomModel::new, new RandomDogPolicy(), maxMovesPerGame)
+                : new BatchSimulator(settings, FixedModel::new, new RandomDogPolicy(), maxMovesPerGame);
+
+        ForkJoinPool pool = new ForkJoinPool(nrThreads);
+        try
+        {
+            BatchResult result = simulator.run(0, nrGames, pool);
+            System.out.println((randomSetup ? "Random" : "Fixed") + " setup on " + nrThreads + " threads: " + result);
+            if (TurnMetrics.ENABLED)
+            {
+                System.out.println("Turn metrics: " + TurnMetrics.get());
+            }
+        }
+        finally
+        {
+            pool.shutdown();
+        }
+    }
+}
@@ -0,0 +1,52 @@
+package main;
+
+import game.RandomModel;
+import game.SetupCheck;
+import simulation.DogPlanner;
+import util.GameSettings;
+import util.SplitMix64;
+
+/**
+ * This class draws random setups through a setup check and prints how many were rejected and how fast setups
+ * were generated. A node budget above 0 also runs the dog planner with that budget on every setup that passes
+ * the flood fills, and rejects the setups it cannot solve.
+ * Arguments: [number of setups] [solver node budget, 0 for none].
+ */
+public class GenerateSetups
+{
+    // Parses the arguments, generates the setups and prints the totals.
+    public static void main(String[] args)
+    {
+        int nrSetups = args.length < 1 ? 1000000 : Integer.parseInt(args[0]);
+        int nodeBudget = args.length < 2 ? 0 : Integer.parseInt(args[1]);
+
+        SetupCheck check;
+        if (nodeBudget > 0)
+        {
+            // A greedy weight and a narrow beam find a plan for the easy setups within a short budget.
+            DogPlanner planner = new DogPlanner(nodeBudget, 100, 3.0);
+            check = new SetupCheck(model -> planner.plan(model).isSolved());
+        }
+        else
+        {
+            check = new SetupCheck();
+        }
+
+        GameSettings settings = new GameSettings();
+        long nrSheep = 0;
+        long start = System.nanoTime();
+        for (int seed = 0; seed < nrSetups; seed++)
+        {
+            RandomModel model = new RandomModel(settings, new SplitMix64(seed));
+            model.setSetupCheck(check);
+            model.initNewGame(settings);
+            nrSheep += model.getNrSheepOutsidePen();
+        }
+        double seconds = (System.nanoTime() - start) / 1e9;
+
+        System.out.println(String.format("%d setups with %.1f sheep on average in %.3f s: %.1f setups/s, "
+                        + "%d drawn, %d rejected by the flood fills, %d by the solver",
+                nrSetups, (double) nrSheep / nrSetups, seconds, nrSetups / seconds, check.getNrChecked(),
+                check.getNrRejectedByFill(), check.getNrRejectedBySolver()));
+    }
+}
@@ -0,0 +1,138 @@
+package main;
+
+import animals.Animals;
+import game.RandomModel;
+import interfaces.InterfaceDogPolicy;
+import interfaces.InterfaceModel;
+import interfaces.InterfaceRandomSource;
+import simulation.RandomDogPolicy;
+import util.GameSettings;
+import util.SplitMix64;
+import util.Zobrist;
+
+/**
+ * This class checks the state hash of the models over many random setup games. After every turn the hash kept by
+ * the model is compared with the hash computed from every cell, and the boards at the start and at the end of every
+ * game are stored by hash with a second, independent fingerprint, so two different boards with the same hash
+ * are found and counted as collisions.
+ * Arguments: [number of games] [moves per game].
+ */
+public class HashCollisions
+{
+    private static long nrStored;
+    private static long nrDuplicates;
+    private static long nrCollisions;
+    private static long[] tableHashes;
+    private static long[] tableFingerprints;
+    private static int tableMask;
+
+    // Plays the games and prints the number of mismatched hashes, repeated boards and collisions.
+    public static void main(String[] args)
+    {
+        int nrGames = args.length < 1 ? 2000000 : Integer.parseInt(args[0]);
+        int movesPerGame = args.length < 2 ? 8 : Integer.parseInt(args[1]);
+
+        // Two boards are stored per game, and the table is kept at most half full.
+        int tableSize = Integer.highestOneBit(Math.max(1, 2 * nrGames)) << 2;
+        tableHashes = new long[tableSize];
+        tableFingerprints = new long[tableSize];
+        tableMask = tableSize - 1;
+
+        GameSettings settings = new GameSettings();
+        InterfaceDogPolicy policy = new RandomDogPolicy();
+        long nrMismatches = 0;
+        long nrTurns = 0;
+        long start = System.nanoTime();
+        for (int seed = 0; seed < nrGames; seed++)
+        {
+            SplitMix64 gameRandom = new SplitMix64(seed);
+            RandomModel model = new RandomModel(settings, gameRandom.split());
+            InterfaceRandomSource policyRandom = gameRandom.split();
+            model.initNewGame(settings);
+            store(model);
+
+            for (int k = 0; k < movesPerGame && model.getGameState() == InterfaceModel.GAME_IN_PROGRESS; k++)
+            {
+                char move = policy.chooseMove(model, policyRandom);
+                model.makeMove(move);
+                if (move != 'o')
+                {
+                    model.sheepBehaviour();
+                    nrTurns++;
+                }
+                if (model.stateHash() != fullHash(model))
+                {
+                    nrMismatches++;
+                }
+            }
+            store(model);
+        }
+
+        System.out.println(String.format("%d games, %d turns in %.3f s: %d hashes differ from the cells, "
+                        + "%d boards stored, %d repeated, %d collisions",
+                nrGames, nrTurns, (System.nanoTime() - start) / 1e9, nrMismatches, nrStored, nrDuplicates,
+                nrCollisions));
+    }
+
+    // Returns the hash of the board of the model computed from every cell.
+    private static long fullHash(InterfaceModel model)
+    {
+        int nrBoardRows = model.getSettings().getNrBoardRows();
+        int nrBoardCols = model.getSettings().getNrBoardCols();
+        long hash = Zobrist.boardKey(nrBoardRows, nrBoardCols);
+        for (int i = 0; i < nrBoardRows; i++)
+        {
+            for (int j = 0; j < nrBoardCols; j++)
+            {
+                byte cellType = model.getCellInfo(i, j);
+                hash ^= Zobrist.key(i * nrBoardCols + j,
+                        cellType == Animals.UPDATED_SHEEP_ID ? Animals.SHEEP_ID : cellType);
+            }
+        }
+        return hash;
+    }
+
+    // Returns a fingerprint of the dimensions and the cells of the board, built by scrambling them one after
+    // the other, which does not depend on the Zobrist keys.
+    private static long fingerprint(InterfaceModel model)
+    {
+        int nrBoardRows = model.getSettings().getNrBoardRows();
+        int nrBoardCols = model.getSettings().getNrBoardCols();
+        long fingerprint = SplitMix64.mix64(((long) nrBoardRows << 32) | nrBoardCols);
+        for (int i = 0; i < nrBoardRows; i++)
+        {
+            for (int j = 0; j < nrBoardCols; j++)
+            {
+                fingerprint = SplitMix64.mix64(fingerprint + model.getCellInfo(i, j));
+            }
+        }
+        return fingerprint;
+    }
+
+    // Stores the board of the model, counting it as repeated if the same board was stored before,
+    // and as a collision if a different board with the same hash was.
+    private static void store(InterfaceModel model)
+    {
+        long hash = model.stateHash();
+        long fingerprint = fingerprint(model);
+        // 0 marks an empty slot, so a hash of 0 is stored as 1, which only adds to the collisions it can show.
+        long key = hash == 0 ? 1 : hash;
+        int slot = (int) key & tableMask;
+        while (tableHashes[slot] != 0)
+        {
+            if (tableHashes[slot] == key)
+            {
+                if (tableFingerprints[slot] == fingerprint)
+                {
+                    nrDuplicates++;
+                    return;
+                }
+                nrCollisions++;
+            }
+            slot = (slot + 1) & tableMask;
+        }
+        tableHashes[slot] = key;
+        tableFingerprints[slot] = fingerprint;
+        nrStored++;
+    }
+}
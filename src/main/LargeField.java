@@ -0,0 +1,114 @@
+package main;
+
+import animals.Animals;
+import animals.Dog;
+import animals.Sheep;
+import game.BoardStorage;
+import game.Model;
+import game.TurnMetrics;
+import interfaces.InterfaceDogPolicy;
+import interfaces.InterfaceModel;
+import simulation.RandomDogPolicy;
+import util.GameSettings;
+import util.SplitMix64;
+
+/**
+ * This class plays a game on a field far larger than the random setups, kept on a sparse board, with the sheep
+ * and the dogs spread over the whole field and the pen in its middle. Every dog is moved at random, and the time
+ * taken by the turns is printed with the memory the game takes, which follows the number of animals rather than
+ * of cells.
+ * With -Dsheepdog.metrics=true, the turn metrics are printed as well.
+ * Arguments: [rows] [columns] [number of sheep] [number of turns] [seed] [number of dogs].
+ */
+public class LargeField
+{
+    // Places the animals, plays the turns and prints how long they took.
+    public static void main(String[] args)
+    {
+        int nrBoardRows = args.length < 1 ? 100000 : Integer.parseInt(args[0]);
+        int nrBoardCols = args.length < 2 ? 100000 : Integer.parseInt(args[1]);
+        int nrSheep = args.length < 3 ? 3000 : Integer.parseInt(args[2]);
+        int nrTurns = args.length < 4 ? 1000 : Integer.parseInt(args[3]);
+        long seed = args.length < 5 ? 1 : Long.parseLong(args[4]);
+        int nrDogs = args.length < 6 ? 1 : Integer.parseInt(args[5]);
+
+        // The pen holds every sheep, and is square when the field is.
+        int nrPenRows = Math.max(2, (int) Math.ceil(Math.sqrt(nrSheep) * nrBoardRows / Math.max(nrBoardRows,
+                nrBoardCols)));
+        int nrPenCols = Math.max(2, (nrSheep + nrPenRows - 1) / nrPenRows);
+        GameSettings settings = new GameSettings(nrBoardRows, nrBoardCols, nrDogs, nrSheep, nrPenRows, nrPenCols);
+        SplitMix64 gameRandom = new SplitMix64(seed);
+        SplitMix64 fieldRandom = gameRandom.split();
+        Model model = new Model(settings, gameRandom.split());
+        model.setBoardStorage(BoardStorage.SPARSE);
+
+        long start = System.nanoTime();
+        model.initNewGame(settings);
+        model.setGameState(InterfaceModel.GAME_IN_PROGRESS);
+        model.placePen((nrBoardRows - nrPenRows) / 2, (nrBoardCols - nrPenCols) / 2);
+        model.initPenDistanceField();
+        for (int i = 0; i < nrSheep; i++)
+        {
+            int[] cell = randomGrassCell(model, fieldRandom);
+            Sheep sheep = new Sheep(i, cell[0], cell[1]);
+            model.getSheep().add(sheep);
+            model.placeSheep(sheep);
+        }
+        model.initDogs(nrDogs);
+        for (Dog dog : model.getDogs())
+        {
+            int[] cell = randomGrassCell(model, fieldRandom);
+            dog.setPosition(cell[0], cell[1]);
+            model.setCellInfo(cell[0], cell[1], Animals.DOG_ID);
+        }
+        long setupTime = System.nanoTime() - start;
+
+        InterfaceDogPolicy policy = new RandomDogPolicy();
+        SplitMix64 policyRandom = gameRandom.split();
+        char[] moves = new char[nrDogs];
+        int nrTurnsPlayed = 0;
+        start = System.nanoTime();
+        while (nrTurnsPlayed < nrTurns && model.getGameState() == InterfaceModel.GAME_IN_PROGRESS)
+        {
+            for (int dogNumber = 0; dogNumber < nrDogs; dogNumber++)
+            {
+                moves[dogNumber] = policy.chooseMove(model, dogNumber, policyRandom);
+            }
+            model.makeMoves(moves);
+            if (model.getGameState() == InterfaceModel.GAME_IN_PROGRESS)
+            {
+                model.sheepBehaviour();
+                nrTurnsPlayed++;
+            }
+        }
+        long turnTime = System.nanoTime() - start;
+        System.gc();
+        Runtime runtime = Runtime.getRuntime();
+        long usedMemory = runtime.totalMemory() - runtime.freeMemory();
+
+        System.out.println(String.format("%dx%d field, %d sheep, %d dogs, pen %dx%d: set up in %.3f s, "
+                        + "%d turns in %.3f s (%.1f turns/s), %d sheep outside the pen, %.1f MB used",
+                nrBoardRows, nrBoardCols, nrSheep, nrDogs, nrPenRows, nrPenCols, setupTime / 1e9, nrTurnsPlayed,
+                turnTime / 1e9, nrTurnsPlayed / Math.max(1e-9, turnTime / 1e9), model.getNrSheepOutsidePen(),
+                usedMemory / 1e6));
+        if (TurnMetrics.ENABLED)
+        {
+            System.out.println("Turn metrics: " + TurnMetrics.get());
+        }
+    }
+
+    // Returns the row and column of a grass cell drawn at random. The animals take few of the cells of the field,
+    // so a cell is drawn again until it is grass.
+    private static int[] randomGrassCell(Model model, SplitMix64 random)
+    {
+        int row;
+        int col;
+        do
+        {
+            row = random.nextInt(0, model.getSettings().getNrBoardRows());
+            col = random.nextInt(0, model.getSettings().getNrBoardCols());
+        }
+        while (model.getCellInfo(row, col) != Animals.GRASS_CELL_ID);
+        return new int[] {row, col};
+    }
+}
@@ -0,0 +1,57 @@
+package main;
+
+import game.FixedModel;
+import game.Model;
+import game.RandomModel;
+import simulation.DogPlanner;
+import simulation.PlanResult;
+import util.GameSettings;
+import util.SplitMix64;
+
+/**
+ * This class sets up a number of games, searches each one with the dog planner, and prints how many were solved
+ * and how fast the planner computed game states.
+ * Arguments: [fixed|random] [number of games] [node budget per game] [beam width, 0 for none] [heuristic weight].
+ */
+public class PlanGames
+{
+    // Parses the arguments, plans the games and prints the totals.
+    public static void main(String[] args)
+    {
+        boolean randomSetup = args.length < 1 || args[0].equals("random");
+        int nrGames = args.length < 2 ? 100 : Integer.parseInt(args[1]);
+        int nodeBudget = args.length < 3 ? 100000 : Integer.parseInt(args[2]);
+        int beamWidth = args.length < 4 ? 1000 : Integer.parseInt(args[3]);
+        double heuristicWeight = args.length < 5 ? 1.0 : Double.parseDouble(args[4]);
+
+        GameSettings settings = new GameSettings();
+        DogPlanner planner = new DogPlanner(nodeBudget, beamWidth, heuristicWeight);
+        long nrSolved = 0;
+        long totalMoves = 0;
+        long totalNodes = 0;
+        long totalNanos = 0;
+        for (int seed = 0; seed < nrGames; seed++)
+        {
+            // Set up the games as the batch simulator does, so the same seed gives the same setup.
+            SplitMix64 gameRandom = new SplitMix64(seed);
+            Model model = randomSetup ? new RandomModel(settings, gameRandom.split())
+                    : new FixedModel(settings, gameRandom.split());
+            model.initNewGame(settings);
+
+            PlanResult result = planner.plan(model);
+            if (result.isSolved())
+            {
+                nrSolved++;
+                totalMoves += result.getMoves().length();
+            }
+            totalNodes += result.getNodesGenerated();
+            totalNanos += result.getElapsedNanos();
+        }
+
+        System.out.println(String.format("%s setup: %d of %d games solved, %.1f moves on average, "
+                        + "%d nodes in %.3f s: %.1f nodes/s",
+                randomSetup ? "Random" : "Fixed", nrSolved, nrGames,
+                nrSolved == 0 ? 0.0 : (double) totalMoves / nrSolved, totalNodes, totalNanos / 1e9,
+                totalNanos == 0 ? 0.0 : totalNodes * 1e9 / totalNanos));
+    }
+}
@@ -0,0 +1,40 @@
+package main;
+
+import server.GameServer;
+
+import java.io.IOException;
+
+/**
+ * This class runs a game server, which plays a game for every client connected to it, until the process is stopped.
+ * The number of connections open is printed every ten seconds.
+ * Arguments: [port] [number of event loops, the number of processors if not given].
+ */
+public class ServeGames
+{
+    // Starts the server and reports on it while it runs.
+    public static void main(String[] args) throws IOException, InterruptedException
+    {
+        int port = args.length < 1 ? 7777 : Integer.parseInt(args[0]);
+        int nrLoops = args.length < 2 ? Runtime.getRuntime().availableProcessors() : Integer.parseInt(args[1]);
+
+        GameServer server = new GameServer(port, nrLoops);
+        Runtime.getRuntime().addShutdownHook(new Thread(() ->
+        {
+            try
+            {
+                server.close();
+            }
+            catch (IOException e)
+            {
+                System.err.println("Closing the server failed: " + e.getMessage());
+            }
+        }));
+        server.start();
+        System.out.println("Serving games on port " + server.getPort() + " with " + nrLoops + " event loops");
+        while (true)
+        {
+            Thread.sleep(10000);
+            System.out.println(server.getNrConnections() + " connections open");
+        }
+    }
+}
@@ -0,0 +1,355 @@
+package main;
+
+import util.Direction;
+import util.SplitMix64;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.StandardSocketOptions;
+import java.nio.ByteBuffer;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.SocketChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayDeque;
+import java.util.Iterator;
+
+/**
+ * This class puts a game server under load: it opens many connections from one thread, and each plays random
+ * games on it, waiting the given think time between its moves as a player would. Every client keeps its own copy of
+ * the board from the changes the server sends, and asks for the whole board now and then to check that copy. The
+ * time from sending a move to reading its reply is printed as percentiles once every client made its moves; the
+ * first tenth of the moves of each client warm the server up and are not timed.
+ * Arguments: [host] [port] [number of connections] [moves per connection] [think time in milliseconds].
+ */
+public class ServerLoad
+{
+    // Moves are timed to the microsecond, up to one second.
+    private static final int MAX_LATENCY_MICROS = 1000000;
+    // Every client asks for the whole board once in this many commands.
+    private static final int BOARD_CHECK_INTERVAL = 64;
+
+    private final long[] latencyCounts = new long[MAX_LATENCY_MICROS + 1];
+    // The clients waiting to send their next command, in the order they are due, as every wait is the same.
+    private final ArrayDeque<Client> dueClients = new ArrayDeque<>();
+    private final SplitMix64 random = new SplitMix64(1);
+    private final long thinkNanos;
+    private int nrClientsDone;
+    private long nrTimedMoves;
+    private long nrGames;
+    private long nrBoardChecks;
+    private long nrMismatches;
+    private long nrErrors;
+
+    // The constructor takes the think time of the clients.
+    private ServerLoad(long thinkNanos)
+    {
+        this.thinkNanos = thinkNanos;
+    }
+
+    // Connects the clients, plays until they are done and prints the results.
+    public static void main(String[] args) throws IOException
+    {
+        String host = args.length < 1 ? "localhost" : args[0];
+        int port = args.length < 2 ? 7777 : Integer.parseInt(args[1]);
+        int nrConnections = args.length < 3 ? 1000 : Integer.parseInt(args[2]);
+        int nrMoves = args.length < 4 ? 1000 : Integer.parseInt(args[3]);
+        long thinkMillis = args.length < 5 ? 100 : Long.parseLong(args[4]);
+
+        ServerLoad load = new ServerLoad(thinkMillis * 1000000);
+        Selector selector = Selector.open();
+        InetSocketAddress address = new InetSocketAddress(host, port);
+        long start = System.nanoTime();
+        for (int k = 0; k < nrConnections; k++)
+        {
+            SocketChannel channel = SocketChannel.open(address);
+            channel.setOption(StandardSocketOptions.TCP_NODELAY, true);
+            channel.configureBlocking(false);
+            Client client = new Client(channel, nrMoves);
+            channel.register(selector, SelectionKey.OP_READ, client);
+            // The first games are started spread over one think time, so the clients do not move all at once.
+            client.dueTime = start + load.thinkNanos * k / nrConnections;
+            load.dueClients.addLast(client);
+        }
+        long connectTime = System.nanoTime() - start;
+
+        start = System.nanoTime();
+        while (load.nrClientsDone < nrConnections)
+        {
+            Client next = load.dueClients.peekFirst();
+            // The wait is rounded up, as spinning until the next client is due would take the processor from the
+            // server when both run on the same machine.
+            long wait = next == null ? 1000 : (next.dueTime - System.nanoTime() + 999999) / 1000000;
+            if (wait > 0)
+            {
+                selector.select(wait);
+            }
+            else
+            {
+                selector.selectNow();
+            }
+            Iterator<SelectionKey> keys = selector.selectedKeys().iterator();
+            while (keys.hasNext())
+            {
+                SelectionKey key = keys.next();
+                keys.remove();
+                load.read((Client) key.attachment(), System.nanoTime());
+            }
+            long now = System.nanoTime();
+            while (!load.dueClients.isEmpty() && load.dueClients.peekFirst().dueTime <= now)
+            {
+                load.sendNext(load.dueClients.pollFirst(), now);
+            }
+        }
+        long playTime = System.nanoTime() - start;
+        selector.close();
+        load.printResults(nrConnections, connectTime, playTime);
+    }
+
+    // Reads what the server sent the given client, and handles every complete line.
+    private void read(Client client, long now) throws IOException
+    {
+        client.input.clear();
+        if (client.channel.read(client.input) < 0)
+        {
+            throw new IOException("the server closed a connection");
+        }
+        client.input.flip();
+        while (client.input.hasRemaining())
+        {
+            char c = (char) client.input.get();
+            if (c == '\n')
+            {
+                handleReply(client, client.line, now);
+                client.line.setLength(0);
+            }
+            else
+            {
+                client.line.append(c);
+            }
+        }
+    }
+
+    // Handles a reply line of the server, and makes the client due to send its next command.
+    private void handleReply(Client client, StringBuilder line, long now) throws IOException
+    {
+        if (line.indexOf("BYE") == 0)
+        {
+            client.channel.close();
+            return;
+        }
+        if (line.indexOf("BOARD ") == 0)
+        {
+            client.position = 6;
+            int nrRows = client.nextNumber(line);
+            int nrCols = client.nextNumber(line);
+            client.nextNumber(line);
+            int gameState = client.nextNumber(line);
+            if (client.checkingBoard)
+            {
+                nrBoardChecks++;
+                for (int cell = 0; cell < client.nrRows * client.nrCols; cell++)
+                {
+                    if (line.charAt(client.position + cell) - '0' != client.cells[cell])
+                    {
+                        nrMismatches++;
+                        break;
+                    }
+                }
+                client.checkingBoard = false;
+            }
+            client.nrRows = nrRows;
+            client.nrCols = nrCols;
+            if (client.cells.length != nrRows * nrCols)
+            {
+                client.cells = new byte[nrRows * nrCols];
+            }
+            for (int cell = 0; cell < nrRows * nrCols; cell++)
+            {
+                client.cells[cell] = (byte) (line.charAt(client.position + cell) - '0');
+                if (client.cells[cell] == 1)
+                {
+                    client.dogCell = cell;
+                }
+            }
+            client.gameOver = gameState != 0;
+        }
+        else if (line.indexOf("DELTA ") == 0)
+        {
+            if (client.timed)
+            {
+                latencyCounts[(int) Math.min(MAX_LATENCY_MICROS, (now - client.sendTime) / 1000)]++;
+                nrTimedMoves++;
+            }
+            client.position = 6;
+            client.nextNumber(line);
+            int gameState = client.nextNumber(line);
+            int nrChanges = client.nextNumber(line);
+            for (int k = 0; k < nrChanges; k++)
+            {
+                int cell = client.nextNumber(line);
+                byte cellType = (byte) client.nextNumber(line);
+                client.cells[cell] = cellType;
+                if (cellType == 1)
+                {
+                    client.dogCell = cell;
+                }
+            }
+            client.gameOver = gameState != 0;
+            if (client.gameOver)
+            {
+                nrGames++;
+            }
+        }
+        else
+        {
+            nrErrors++;
+            client.gameOver = true;
+        }
+        client.dueTime = now + thinkNanos;
+        dueClients.addLast(client);
+    }
+
+    // Sends the next command of the given client: a new game once its game is over, its end once it made all its
+    // moves, and otherwise a board check now and then or a random valid move of its dog.
+    private void sendNext(Client client, long now) throws IOException
+    {
+        if (client.movesLeft == 0)
+        {
+            client.send("QUIT\n");
+            nrClientsDone++;
+        }
+        else if (client.gameOver)
+        {
+            startGame(client);
+        }
+        else if (++client.nrCommands % BOARD_CHECK_INTERVAL == 0)
+        {
+            client.checkingBoard = true;
+            client.send("BOARD\n");
+        }
+        else
+        {
+            client.timed = client.movesLeft-- <= client.nrTimedMoves;
+            client.sendTime = System.nanoTime();
+            client.send("MOVE " + chooseMove(client) + "\n");
+        }
+    }
+
+    // Starts a new random game on the given client.
+    private void startGame(Client client) throws IOException
+    {
+        client.gameOver = false;
+        client.send("NEW RANDOM " + random.nextLong() + "\n");
+    }
+
+    // Returns a random valid move of the dog of the given client, or concedes if it cannot move.
+    private char chooseMove(Client client)
+    {
+        int row = client.dogCell / client.nrCols;
+        int col = client.dogCell % client.nrCols;
+        char[] moves = new char[4];
+        int nrMoves = 0;
+        for (Direction direction : Direction.values())
+        {
+            int newRow = row + direction.getRowDelta();
+            int newCol = col + direction.getColDelta();
+            if (newRow >= 0 && newRow < client.nrRows && newCol >= 0 && newCol < client.nrCols
+                    && client.cells[newRow * client.nrCols + newCol] == 0)
+            {
+                moves[nrMoves++] = direction.getKey();
+            }
+        }
+        return nrMoves == 0 ? 'o' : moves[random.nextInt(0, nrMoves)];
+    }
+
+    // Prints the rate of the moves, their latency percentiles and the checks of the boards.
+    private void printResults(int nrConnections, long connectTime, long playTime)
+    {
+        System.out.println(String.format("%d connections opened in %.3f s, %d timed moves in %.3f s "
+                        + "(%.0f moves/s), %d games finished", nrConnections, connectTime / 1e9, nrTimedMoves,
+                playTime / 1e9, nrTimedMoves / Math.max(1e-9, playTime / 1e9), nrGames));
+        System.out.println(String.format("Move latency: p50 %.3f ms, p99 %.3f ms, p99.9 %.3f ms, max %.3f ms",
+                percentile(0.5), percentile(0.99), percentile(0.999), percentile(1)));
+        System.out.println(nrBoardChecks + " boards checked, " + nrMismatches + " mismatches, " + nrErrors
+                + " errors");
+    }
+
+    // Returns the latency in milliseconds under which the given fraction of the timed moves took.
+    private double percentile(double fraction)
+    {
+        long rank = (long) Math.ceil(fraction * nrTimedMoves);
+        long count = 0;
+        for (int micros = 0; micros <= MAX_LATENCY_MICROS; micros++)
+        {
+            count += latencyCounts[micros];
+            if (count >= Math.max(1, rank))
+            {
+                return micros / 1000.0;
+            }
+        }
+        return MAX_LATENCY_MICROS / 1000.0;
+    }
+
+    /**
+     * One connection of the load, with its copy of the board of its game.
+     */
+    private static class Client
+    {
+        private final SocketChannel channel;
+        private final ByteBuffer input = ByteBuffer.allocate(8192);
+        private final StringBuilder line = new StringBuilder();
+        private final int nrTimedMoves;
+        private byte[] cells = new byte[0];
+        private int nrRows;
+        private int nrCols;
+        private int dogCell;
+        // A client starts a game when it has none in progress, as it has not at first.
+        private boolean gameOver = true;
+        private boolean checkingBoard;
+        private boolean timed;
+        private int movesLeft;
+        private int nrCommands;
+        private long sendTime;
+        private long dueTime;
+        // Where the next number of the line being parsed starts.
+        private int position;
+
+        // The constructor takes the channel of the client and the number of moves it makes.
+        Client(SocketChannel channel, int nrMoves)
+        {
+            this.channel = channel;
+            this.movesLeft = nrMoves;
+            this.nrTimedMoves = nrMoves - nrMoves / 10;
+        }
+
+        // Sends the given command. Commands are short, so the socket buffer always takes them whole.
+        void send(String command) throws IOException
+        {
+            ByteBuffer buffer = ByteBuffer.wrap(command.getBytes(StandardCharsets.US_ASCII));
+            channel.write(buffer);
+            if (buffer.hasRemaining())
+            {
+                throw new IOException("a command was not sent whole");
+            }
+        }
+
+        // Returns the number, maybe negative, at the position in the given line, and moves the position past it
+        // and the character that ends it.
+        int nextNumber(StringBuilder line)
+        {
+            boolean negative = position < line.length() && line.charAt(position) == '-';
+            if (negative)
+            {
+                position++;
+            }
+            int number = 0;
+            while (position < line.length() && Character.isDigit(line.charAt(position)))
+            {
+                number = number * 10 + line.charAt(position++) - '0';
+            }
+            position++;
+            return negative ? -number : number;
+        }
+    }
+}
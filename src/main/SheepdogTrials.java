@@ -1,6 +1,9 @@
 package main;
 
 import game.Controller;
+import game.TextView;
+
+import java.nio.file.Path;
 
 /**
  * This class, is the main class of the project and creates a controller to start the game.
@@ -9,9 +12,25 @@ import game.Controller;
 public class SheepdogTrials
 {
     // Controller is created to start the game.
+    // With the argument --diff, the board is redrawn in place, changing only the cells that changed.
+    // With the arguments --record and a directory, every game is recorded to a replay file in that directory.
 	public static void main(String[] args)
     {
-        Controller controller = new Controller();
+        boolean diffMode = false;
+        Path replayDirectory = null;
+        for (int k = 0; k < args.length; k++)
+        {
+            if (args[k].equals("--diff"))
+            {
+                diffMode = true;
+            }
+            else if (args[k].equals("--record") && k + 1 < args.length)
+            {
+                replayDirectory = Path.of(args[++k]);
+            }
+        }
+        TextView view = new TextView(diffMode);
+        Controller controller = new Controller(view, view, replayDirectory);
         controller.startSession();
     }
 }
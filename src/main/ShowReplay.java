@@ -0,0 +1,34 @@
+package main;
+
+import game.Model;
+import game.TextView;
+import replay.ReplayReader;
+
+import java.io.IOException;
+import java.nio.file.Path;
+
+/**
+ * This class prints what a replay file holds and the board of one of its turns.
+ * Arguments: [replay file] [turn, the last turn if not given].
+ */
+public class ShowReplay
+{
+    // Reads the replay, rebuilds the turn and prints it.
+    public static void main(String[] args) throws IOException
+    {
+        if (args.length < 1)
+        {
+            System.err.println("Usage: ShowReplay <replay file> [turn]");
+            return;
+        }
+        ReplayReader replay = ReplayReader.open(Path.of(args[0]));
+        int turn = args.length < 2 ? replay.getNrTurns() : Integer.parseInt(args[1]);
+
+        System.out.println((replay.isRandomSetup() ? "Random" : "Fixed") + " setup, seed "
+                + Long.toHexString(replay.getSeed()) + ", " + replay.getNrTurns() + " turns, "
+                + replay.getNrKeyframes() + " keyframes, final state " + replay.getGameState());
+        Model model = replay.modelAtTurn(turn);
+        System.out.println("Turn " + turn + (turn > 0 ? ", after the move '" + replay.getMove(turn - 1) + "'" : ""));
+        new TextView().displayBoard(model);
+    }
+}
@@ -0,0 +1,34 @@
+package replay;
+
+/**
+ * This class holds the constants of the replay file format, which is written by ReplayWriter and read
+ * by ReplayReader. All numbers are big-endian.
+ * The file starts with a header: the magic number, the version, the setup (fixed or random), the seed
+ * of the random source of the model, the settings the game was started with, the settings of the game
+ * (which differ for a random setup), the number of turns between keyframes, the starting cell of the dog,
+ * and the number of sheep followed by the starting cell of each.
+ * The header is followed by chunks, each starting with its type:
+ * moves, as a count and the moves packed 4 to a byte, 2 bits each, the first move in the lowest bits;
+ * keyframes, as the number of turns played, the size of the state and the state written by Model.writeState;
+ * and the end of the game, as the final state of the game and the number of turns played.
+ */
+final class ReplayFormat
+{
+    // "SDRP" in ASCII.
+    static final int MAGIC = 0x53445250;
+    static final short VERSION = 1;
+
+    static final byte FIXED_SETUP = 0;
+    static final byte RANDOM_SETUP = 1;
+
+    static final byte MOVES_CHUNK = 1;
+    static final byte KEYFRAME_CHUNK = 2;
+    static final byte END_CHUNK = 3;
+
+    // Largest number of moves in a moves chunk.
+    static final int MAX_MOVES_PER_CHUNK = 4096;
+
+    private ReplayFormat()
+    {
+    }
+}
@@ -0,0 +1,295 @@
+package replay;
+
+import game.FixedModel;
+import game.Model;
+import game.RandomModel;
+import interfaces.InterfaceModel;
+import util.Direction;
+import util.GameSettings;
+import util.SplitMix64;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+
+/**
+ * This class reads a replay file written by ReplayWriter. The file is mapped into memory and its chunks
+ * are read once when it is opened, keeping the moves and where the keyframes are.
+ * Any turn of the game can then be rebuilt by loading the nearest keyframe before it and playing
+ * the moves from there.
+ */
+public class ReplayReader
+{
+    private final ByteBuffer file;
+    private final boolean randomSetup;
+    private final long seed;
+    private final GameSettings startSettings;
+    private final GameSettings settings;
+    private final int keyframeInterval;
+    private final int dogStartRow;
+    private final int dogStartCol;
+    private final int[] sheepStartRows;
+    private final int[] sheepStartCols;
+    // Moves of the dog, packed 2 bits each, the first move in the lowest bits.
+    private byte[] moves = new byte[64];
+    private int nrTurns;
+    // Number of turns played at each keyframe, in increasing order, and where the state of each starts in the file.
+    private int[] keyframeTurns = new int[8];
+    private int[] keyframePositions = new int[8];
+    private int nrKeyframes;
+    private byte gameState = InterfaceModel.GAME_IN_PROGRESS;
+
+    // Reads the header and indexes the chunks of the given mapped file.
+    private ReplayReader(ByteBuffer file)
+    {
+        this.file = file;
+        if (file.getInt() != ReplayFormat.MAGIC)
+        {
+            throw new IllegalArgumentException("Not a replay file");
+        }
+        short version = file.getShort();
+        if (version != ReplayFormat.VERSION)
+        {
+            throw new IllegalArgumentException("Unsupported replay version: " + version);
+        }
+        randomSetup = file.get() == ReplayFormat.RANDOM_SETUP;
+        seed = file.getLong();
+        startSettings = getSettings(file);
+        settings = getSettings(file);
+        keyframeInterval = file.getInt();
+        dogStartRow = file.getInt();
+        dogStartCol = file.getInt();
+        int nrSheep = file.getInt();
+        sheepStartRows = new int[nrSheep];
+        sheepStartCols = new int[nrSheep];
+        for (int k = 0; k < nrSheep; k++)
+        {
+            sheepStartRows[k] = file.getInt();
+            sheepStartCols[k] = file.getInt();
+        }
+
+        while (file.hasRemaining())
+        {
+            byte chunkType = file.get();
+            if (chunkType == ReplayFormat.MOVES_CHUNK)
+            {
+                readMoves(file);
+            }
+            else if (chunkType == ReplayFormat.KEYFRAME_CHUNK)
+            {
+                int turn = file.getInt();
+                int stateSize = file.getInt();
+                addKeyframe(turn, file.position());
+                file.position(file.position() + stateSize);
+            }
+            else if (chunkType == ReplayFormat.END_CHUNK)
+            {
+                gameState = file.get();
+                int nrRecordedTurns = file.getInt();
+                if (nrRecordedTurns != nrTurns)
+                {
+                    throw new IllegalArgumentException("Replay ends after " + nrRecordedTurns
+                            + " turns but holds " + nrTurns + " moves");
+                }
+            }
+            else
+            {
+                throw new IllegalArgumentException("Unknown replay chunk type: " + chunkType);
+            }
+        }
+    }
+
+    // Opens the replay file at the given path.
+    // Throws an IllegalArgumentException if it is not a replay file or is damaged.
+    public static ReplayReader open(Path path) throws IOException
+    {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ))
+        {
+            // The mapping stays valid after the channel is closed.
+            MappedByteBuffer file = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            return new ReplayReader(file);
+        }
+    }
+
+    // Returns a model in the state of the game after the given number of turns, from 0 to getNrTurns().
+    // Throws an IllegalStateException if the game no longer starts as it did when it was recorded,
+    // which happens when the rules of the game have changed since.
+    public Model modelAtTurn(int turn)
+    {
+        if (turn < 0 || turn > nrTurns)
+        {
+            throw new IndexOutOfBoundsException("Turn " + turn + " is not between 0 and " + nrTurns);
+        }
+        Model model = randomSetup
+                ? new RandomModel(startSettings, new SplitMix64(seed))
+                : new FixedModel(startSettings, new SplitMix64(seed));
+        model.initNewGame(startSettings);
+        checkStart(model);
+
+        // Start from the last keyframe at or before the turn, if there is one.
+        int firstTurn = 0;
+        int keyframe = Arrays.binarySearch(keyframeTurns, 0, nrKeyframes, turn);
+        if (keyframe < 0)
+        {
+            keyframe = -keyframe - 2;
+        }
+        if (keyframe >= 0)
+        {
+            model.readState(file.duplicate().position(keyframePositions[keyframe]));
+            firstTurn = keyframeTurns[keyframe];
+        }
+
+        for (int t = firstTurn; t < turn; t++)
+        {
+            model.makeMove(getMove(t));
+            model.sheepBehaviour();
+        }
+        return model;
+    }
+
+    // Returns the move of the dog in the given turn, counted from 0, as the key the player typed.
+    public char getMove(int turn)
+    {
+        if (turn < 0 || turn >= nrTurns)
+        {
+            throw new IndexOutOfBoundsException("Turn " + turn + " is not between 0 and " + (nrTurns - 1));
+        }
+        int code = (moves[turn >> 2] >> ((turn & 3) * 2)) & 3;
+        return Direction.values()[code].getKey();
+    }
+
+    // Getter of the number of turns recorded.
+    public int getNrTurns()
+    {
+        return nrTurns;
+    }
+
+    // Getter of the final state of the game, or GAME_IN_PROGRESS if the recording stopped before it ended.
+    public byte getGameState()
+    {
+        return gameState;
+    }
+
+    // Returns true if the game has a random setup.
+    public boolean isRandomSetup()
+    {
+        return randomSetup;
+    }
+
+    // Getter of the seed of the random source of the game.
+    public long getSeed()
+    {
+        return seed;
+    }
+
+    // Getter of the settings the game was started with.
+    public GameSettings getStartSettings()
+    {
+        return startSettings;
+    }
+
+    // Getter of the settings of the game, which for a random setup were chosen when it started.
+    public GameSettings getSettings()
+    {
+        return settings;
+    }
+
+    // Getter of the number of turns between keyframes.
+    public int getKeyframeInterval()
+    {
+        return keyframeInterval;
+    }
+
+    // Getter of the number of keyframes in the file.
+    public int getNrKeyframes()
+    {
+        return nrKeyframes;
+    }
+
+    // Getters of the starting cell of the dog.
+    public int getDogStartRow()
+    {
+        return dogStartRow;
+    }
+
+    public int getDogStartCol()
+    {
+        return dogStartCol;
+    }
+
+    // Getters of the starting cell of the sheep at the given position of the sheep list.
+    public int getSheepStartRow(int sheep)
+    {
+        return sheepStartRows[sheep];
+    }
+
+    public int getSheepStartCol(int sheep)
+    {
+        return sheepStartCols[sheep];
+    }
+
+    // Getter of the number of sheep.
+    public int getNrSheep()
+    {
+        return sheepStartRows.length;
+    }
+
+    // Reads settings written by ReplayWriter.
+    private static GameSettings getSettings(ByteBuffer file)
+    {
+        return new GameSettings(file.getInt(), file.getInt(), file.getInt(), file.getInt(), file.getInt(),
+                file.getInt());
+    }
+
+    // Appends the moves of a moves chunk to the moves read so far.
+    private void readMoves(ByteBuffer file)
+    {
+        int nrMoves = file.getShort() & 0xffff;
+        int nrBytes = (nrMoves + 3) / 4;
+        int chunkStart = file.position();
+        if (moves.length < (nrTurns + nrMoves + 3) / 4)
+        {
+            moves = Arrays.copyOf(moves, Math.max(moves.length * 2, (nrTurns + nrMoves + 3) / 4));
+        }
+        for (int k = 0; k < nrMoves; k++)
+        {
+            int code = (file.get(chunkStart + (k >> 2)) >> ((k & 3) * 2)) & 3;
+            moves[nrTurns >> 2] |= (byte) (code << ((nrTurns & 3) * 2));
+            nrTurns++;
+        }
+        file.position(chunkStart + nrBytes);
+    }
+
+    // Adds a keyframe found in the file.
+    private void addKeyframe(int turn, int position)
+    {
+        if (nrKeyframes == keyframeTurns.length)
+        {
+            keyframeTurns = Arrays.copyOf(keyframeTurns, nrKeyframes * 2);
+            keyframePositions = Arrays.copyOf(keyframePositions, nrKeyframes * 2);
+        }
+        keyframeTurns[nrKeyframes] = turn;
+        keyframePositions[nrKeyframes] = position;
+        nrKeyframes++;
+    }
+
+    // Checks that the given new model starts the game as it was recorded.
+    private void checkStart(Model model)
+    {
+        boolean sameStart = model.getDog().getRow() == dogStartRow && model.getDog().getCol() == dogStartCol
+                && model.getSheep().size() == sheepStartRows.length;
+        for (int k = 0; sameStart && k < sheepStartRows.length; k++)
+        {
+            sameStart = model.getSheep().get(k).getRow() == sheepStartRows[k]
+                    && model.getSheep().get(k).getCol() == sheepStartCols[k];
+        }
+        if (!sameStart)
+        {
+            throw new IllegalStateException("The game no longer starts as it did when it was recorded");
+        }
+    }
+}
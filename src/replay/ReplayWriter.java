@@ -0,0 +1,219 @@
+package replay;
+
+import game.Model;
+import util.Direction;
+import util.GameSettings;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+
+/**
+ * This class records a game to a replay file, in the format described in ReplayFormat. It stores how the game
+ * was created and the moves of the dog, 2 bits each, and every few turns a keyframe with the whole state
+ * of the game so a ReplayReader can rebuild any turn without playing the game from the start.
+ * Data is collected in a buffer and written to the file when the buffer is full, and when the writer is closed.
+ */
+public class ReplayWriter implements Closeable
+{
+    // Number of turns between keyframes used when none is given.
+    public static final int DEFAULT_KEYFRAME_INTERVAL = 64;
+
+    private static final int BUFFER_SIZE = 1 << 16;
+
+    private final FileChannel channel;
+    private final int keyframeInterval;
+    private ByteBuffer buffer = ByteBuffer.allocate(BUFFER_SIZE);
+    // Moves not written to the buffer yet, packed 2 bits each.
+    private final byte[] pendingMoves = new byte[ReplayFormat.MAX_MOVES_PER_CHUNK / 4];
+    private int nrPendingMoves;
+    private int nrTurns;
+    private boolean finished;
+
+    // Creates a writer to the given open file.
+    private ReplayWriter(FileChannel channel, int keyframeInterval)
+    {
+        this.channel = channel;
+        this.keyframeInterval = keyframeInterval;
+    }
+
+    // Creates the replay file of a game, replacing any file at the given path. The model must have been created
+    // with a SplitMix64 source of the given seed and the given settings, and initNewGame must have been called
+    // with those settings, so a reader can create the same game again. A turn is recorded as a single move,
+    // so games with more than one dog cannot be recorded.
+    public static ReplayWriter create(Path path, boolean randomSetup, GameSettings startSettings, long seed,
+                                      Model model, int keyframeInterval) throws IOException
+    {
+        if (keyframeInterval < 1)
+        {
+            throw new IllegalArgumentException("keyframeInterval must be positive: " + keyframeInterval);
+        }
+        if (model.getDogs().size() != 1)
+        {
+            throw new IllegalArgumentException("Only games with one dog are recorded: " + model.getDogs().size());
+        }
+        FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING);
+        ReplayWriter writer = new ReplayWriter(channel, keyframeInterval);
+        try
+        {
+            writer.writeHeader(randomSetup, startSettings, seed, model);
+        }
+        catch (IOException | RuntimeException e)
+        {
+            channel.close();
+            throw e;
+        }
+        return writer;
+    }
+
+    // Records a turn of the game: the dog made the given move and the sheep moved. Must be called after
+    // sheepBehaviour, as the model is saved in a keyframe every keyframeInterval turns.
+    public void recordMove(char move, Model model) throws IOException
+    {
+        Direction direction = Direction.fromKey(move);
+        if (direction == null)
+        {
+            throw new IllegalArgumentException("Only moves of the dog are recorded, not '" + move + "'");
+        }
+        pendingMoves[nrPendingMoves >> 2] |= (byte) (direction.ordinal() << ((nrPendingMoves & 3) * 2));
+        nrPendingMoves++;
+        nrTurns++;
+        if (nrPendingMoves == ReplayFormat.MAX_MOVES_PER_CHUNK)
+        {
+            writePendingMoves();
+        }
+        if (nrTurns % keyframeInterval == 0)
+        {
+            writeKeyframe(model);
+        }
+    }
+
+    // Records the end of the game with its final state, such as won or conceded.
+    public void finish(byte gameState) throws IOException
+    {
+        writePendingMoves();
+        ensureRemaining(1 + 1 + Integer.BYTES);
+        buffer.put(ReplayFormat.END_CHUNK);
+        buffer.put(gameState);
+        buffer.putInt(nrTurns);
+        finished = true;
+    }
+
+    // Returns the number of turns recorded so far.
+    public int getNrTurns()
+    {
+        return nrTurns;
+    }
+
+    @Override
+    // Writes what is left in the buffer and closes the file. A game closed without finish is read as
+    // still in progress.
+    public void close() throws IOException
+    {
+        try
+        {
+            if (!finished)
+            {
+                writePendingMoves();
+            }
+            flush();
+        }
+        finally
+        {
+            channel.close();
+        }
+    }
+
+    // Writes the header of the file, with the starting cells of the dog and of the sheep of the given model.
+    private void writeHeader(boolean randomSetup, GameSettings startSettings, long seed, Model model)
+            throws IOException
+    {
+        int nrSheep = model.getSheep().size();
+        ensureRemaining(Integer.BYTES + Short.BYTES + 1 + Long.BYTES + 12 * Integer.BYTES + Integer.BYTES
+                + 3 * Integer.BYTES + nrSheep * 2 * Integer.BYTES);
+        buffer.putInt(ReplayFormat.MAGIC);
+        buffer.putShort(ReplayFormat.VERSION);
+        buffer.put(randomSetup ? ReplayFormat.RANDOM_SETUP : ReplayFormat.FIXED_SETUP);
+        buffer.putLong(seed);
+        putSettings(startSettings);
+        putSettings(model.getSettings());
+        buffer.putInt(keyframeInterval);
+        buffer.putInt(model.getDog().getRow());
+        buffer.putInt(model.getDog().getCol());
+        buffer.putInt(nrSheep);
+        for (int k = 0; k < nrSheep; k++)
+        {
+            buffer.putInt(model.getSheep().get(k).getRow());
+            buffer.putInt(model.getSheep().get(k).getCol());
+        }
+    }
+
+    // Writes the given settings to the buffer.
+    private void putSettings(GameSettings settings)
+    {
+        buffer.putInt(settings.getNrBoardRows());
+        buffer.putInt(settings.getNrBoardCols());
+        buffer.putInt(settings.nrDogs);
+        buffer.putInt(settings.getNrSheep());
+        buffer.putInt(settings.getNrPenRows());
+        buffer.putInt(settings.getNrPenCols());
+    }
+
+    // Writes the moves recorded since the last moves chunk as a new chunk.
+    private void writePendingMoves() throws IOException
+    {
+        if (nrPendingMoves == 0)
+        {
+            return;
+        }
+        int nrBytes = (nrPendingMoves + 3) / 4;
+        ensureRemaining(1 + Short.BYTES + nrBytes);
+        buffer.put(ReplayFormat.MOVES_CHUNK);
+        buffer.putShort((short) nrPendingMoves);
+        buffer.put(pendingMoves, 0, nrBytes);
+        Arrays.fill(pendingMoves, 0, nrBytes, (byte) 0);
+        nrPendingMoves = 0;
+    }
+
+    // Writes the state of the model as a keyframe of the current turn.
+    private void writeKeyframe(Model model) throws IOException
+    {
+        writePendingMoves();
+        int stateSize = model.getStateSize();
+        ensureRemaining(1 + 2 * Integer.BYTES + stateSize);
+        buffer.put(ReplayFormat.KEYFRAME_CHUNK);
+        buffer.putInt(nrTurns);
+        buffer.putInt(stateSize);
+        model.writeState(buffer);
+    }
+
+    // Makes room for the given number of bytes in the buffer, writing it to the file first if needed.
+    // The buffer grows if it is too small for them even when empty.
+    private void ensureRemaining(int nrBytes) throws IOException
+    {
+        if (buffer.remaining() < nrBytes)
+        {
+            flush();
+            if (buffer.capacity() < nrBytes)
+            {
+                buffer = ByteBuffer.allocate(nrBytes);
+            }
+        }
+    }
+
+    // Writes the content of the buffer to the file and empties it.
+    private void flush() throws IOException
+    {
+        buffer.flip();
+        while (buffer.hasRemaining())
+        {
+            channel.write(buffer);
+        }
+        buffer.clear();
+    }
+}
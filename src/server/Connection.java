@@ -0,0 +1,115 @@
+package server;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.SocketChannel;
+
+/**
+ * This class holds one client connection of the game server: its channel, the bytes read but not yet split into
+ * lines, the replies not yet written, and the game session the lines are handed to. It is only used by the event
+ * loop whose selector the channel is registered with. While replies wait to be written, the connection stops reading,
+ * so a client that sends faster than it reads is held back instead of filling the memory of the server.
+ */
+class Connection
+{
+    // Commands are short; a longer line is answered with an error and ends the connection.
+    static final int MAX_LINE_LENGTH = 256;
+
+    private final SocketChannel channel;
+    private final SelectionKey key;
+    private final GameSession session = new GameSession();
+    private final ByteBuffer input = ByteBuffer.allocate(MAX_LINE_LENGTH);
+    // The replies not written yet, kept ready to be written to, so their bytes run from 0 to the position.
+    private ByteBuffer output = ByteBuffer.allocate(4096);
+    private final StringBuilder line = new StringBuilder();
+    private final StringBuilder reply = new StringBuilder();
+    private boolean closing;
+
+    // The constructor takes the channel and the key it is registered with.
+    Connection(SocketChannel channel, SelectionKey key)
+    {
+        this.channel = channel;
+        this.key = key;
+    }
+
+    // Reads the bytes the client sent, handles every complete line and writes the replies as far as the channel
+    // takes them. Returns false once the connection is to be closed.
+    boolean onReadable() throws IOException
+    {
+        if (channel.read(input) < 0)
+        {
+            return false;
+        }
+        input.flip();
+        while (input.hasRemaining() && !closing)
+        {
+            char c = (char) (input.get() & 0xff);
+            if (c == '\n')
+            {
+                session.handle(line, reply);
+                line.setLength(0);
+                closing = session.isEnded();
+            }
+            else if (c != '\r')
+            {
+                if (line.length() == MAX_LINE_LENGTH)
+                {
+                    reply.append("ERR line longer than ").append(MAX_LINE_LENGTH).append(" characters\n");
+                    closing = true;
+                }
+                line.append(c);
+            }
+        }
+        input.clear();
+        queueReply();
+        return onWritable();
+    }
+
+    // Writes the replies waiting as far as the channel takes them, and reads again once none is left.
+    // Returns false once the connection is to be closed.
+    boolean onWritable() throws IOException
+    {
+        output.flip();
+        channel.write(output);
+        output.compact();
+        if (output.position() > 0)
+        {
+            key.interestOps(SelectionKey.OP_WRITE);
+            return true;
+        }
+        key.interestOps(SelectionKey.OP_READ);
+        return !closing;
+    }
+
+    // Closes the channel of the connection.
+    void close()
+    {
+        key.cancel();
+        try
+        {
+            channel.close();
+        }
+        catch (IOException e)
+        {
+            // The connection is dropped either way.
+        }
+    }
+
+    // Moves the replies built into the output buffer, growing it when they do not fit. Replies are ASCII.
+    private void queueReply()
+    {
+        if (reply.length() > output.remaining())
+        {
+            ByteBuffer grown = ByteBuffer.allocate(Math.max(output.capacity() * 2, output.position() + reply.length()));
+            output.flip();
+            grown.put(output);
+            output = grown;
+        }
+        for (int k = 0; k < reply.length(); k++)
+        {
+            output.put((byte) reply.charAt(k));
+        }
+        reply.setLength(0);
+    }
+}
@@ -0,0 +1,226 @@
+package server;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.StandardSocketOptions;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.util.Iterator;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * This class serves games over TCP, each connection playing its own games through a GameSession, with the line
+ * protocol described there. The connections are shared out among a few event loops, each a thread with its own
+ * selector, so thousands of matches are held by as many threads as there are loops: a match costs the server its
+ * model and buffers, and a thread only while a command of it is handled. The first loop also accepts the new
+ * connections, and hands them to the loops in turn.
+ */
+public class GameServer implements Closeable
+{
+    private final ServerSocketChannel serverChannel;
+    private final EventLoop[] loops;
+    private final AtomicInteger nrConnections = new AtomicInteger();
+    private volatile boolean running;
+    private int nextLoop;
+
+    // The constructor binds the server to the given port, or to a free port if it is 0, and prepares the given
+    // number of event loops. The server takes no connection before it is started.
+    public GameServer(int port, int nrLoops) throws IOException
+    {
+        if (nrLoops < 1)
+        {
+            throw new IllegalArgumentException("a server needs at least one event loop: " + nrLoops);
+        }
+        serverChannel = ServerSocketChannel.open();
+        serverChannel.setOption(StandardSocketOptions.SO_REUSEADDR, true);
+        serverChannel.bind(new InetSocketAddress(port), 4096);
+        serverChannel.configureBlocking(false);
+        loops = new EventLoop[nrLoops];
+        for (int k = 0; k < nrLoops; k++)
+        {
+            loops[k] = new EventLoop(k);
+        }
+        serverChannel.register(loops[0].selector, SelectionKey.OP_ACCEPT);
+    }
+
+    // Starts the threads of the event loops, which keep serving until the server is closed.
+    public void start()
+    {
+        running = true;
+        for (EventLoop loop : loops)
+        {
+            loop.thread.start();
+        }
+    }
+
+    // Getter of the port the server listens on.
+    public int getPort()
+    {
+        return serverChannel.socket().getLocalPort();
+    }
+
+    // Getter of the number of connections open.
+    public int getNrConnections()
+    {
+        return nrConnections.get();
+    }
+
+    @Override
+    // Stops the event loops, and closes every connection and the server channel.
+    public void close() throws IOException
+    {
+        running = false;
+        for (EventLoop loop : loops)
+        {
+            loop.selector.wakeup();
+            if (loop.thread.isAlive())
+            {
+                try
+                {
+                    loop.thread.join();
+                }
+                catch (InterruptedException e)
+                {
+                    Thread.currentThread().interrupt();
+                }
+            }
+        }
+        for (EventLoop loop : loops)
+        {
+            for (SelectionKey key : loop.selector.keys())
+            {
+                key.channel().close();
+            }
+            loop.selector.close();
+        }
+        serverChannel.close();
+    }
+
+    // Accepts every connection waiting, and hands each to the next loop in turn.
+    private void acceptConnections() throws IOException
+    {
+        SocketChannel channel;
+        while ((channel = serverChannel.accept()) != null)
+        {
+            channel.configureBlocking(false);
+            // Replies are single short lines the client waits for, so they are sent at once.
+            channel.setOption(StandardSocketOptions.TCP_NODELAY, true);
+            nrConnections.incrementAndGet();
+            loops[nextLoop].newChannels.add(channel);
+            loops[nextLoop].selector.wakeup();
+            nextLoop = (nextLoop + 1) % loops.length;
+        }
+    }
+
+    /**
+     * One event loop of the server: a thread that waits on its selector for the connections registered with it,
+     * and handles their commands.
+     */
+    private class EventLoop implements Runnable
+    {
+        private final Selector selector;
+        private final Thread thread;
+        // Connections accepted for this loop and not registered with its selector yet.
+        private final Queue<SocketChannel> newChannels = new ConcurrentLinkedQueue<>();
+
+        // The constructor opens the selector of the loop and creates its thread.
+        EventLoop(int number) throws IOException
+        {
+            selector = Selector.open();
+            thread = new Thread(this, "game-server-loop-" + number);
+        }
+
+        @Override
+        // Waits for connections to be ready, and handles them until the server is closed.
+        public void run()
+        {
+            while (running)
+            {
+                try
+                {
+                    selector.select();
+                    registerNewChannels();
+                    Iterator<SelectionKey> keys = selector.selectedKeys().iterator();
+                    while (keys.hasNext())
+                    {
+                        SelectionKey key = keys.next();
+                        keys.remove();
+                        if (key.isValid() && key.isAcceptable())
+                        {
+                            acceptConnections();
+                        }
+                        else if (key.isValid())
+                        {
+                            handle((Connection) key.attachment(), key);
+                        }
+                    }
+                }
+                catch (IOException e)
+                {
+                    // Only the selector and the server channel get here; a failed connection is closed on its own.
+                    if (running)
+                    {
+                        System.err.println("Game server loop failed: " + e.getMessage());
+                    }
+                }
+            }
+        }
+
+        // Registers the connections handed to this loop with its selector. A connection the client closed before it
+        // was registered is closed and no longer counted, and the others are still registered.
+        private void registerNewChannels()
+        {
+            SocketChannel channel;
+            while ((channel = newChannels.poll()) != null)
+            {
+                try
+                {
+                    SelectionKey key = channel.register(selector, SelectionKey.OP_READ);
+                    key.attach(new Connection(channel, key));
+                }
+                catch (IOException e)
+                {
+                    try
+                    {
+                        channel.close();
+                    }
+                    catch (IOException closeFailure)
+                    {
+                        // The connection is dropped either way.
+                    }
+                    nrConnections.decrementAndGet();
+                }
+            }
+        }
+
+        // Lets the given connection read or write, and closes it when it is done or fails. Whatever a connection
+        // throws only closes that connection, so the loop goes on serving the others.
+        private void handle(Connection connection, SelectionKey key)
+        {
+            boolean open;
+            try
+            {
+                open = key.isReadable() ? connection.onReadable() : connection.onWritable();
+            }
+            catch (IOException e)
+            {
+                open = false;
+            }
+            catch (RuntimeException e)
+            {
+                System.err.println("Game server connection failed: " + e);
+                open = false;
+            }
+            if (!open)
+            {
+                connection.close();
+                nrConnections.decrementAndGet();
+            }
+        }
+    }
+}
@@ -0,0 +1,230 @@
+package server;
+
+import animals.Animals;
+import game.FixedModel;
+import game.Match;
+import game.Model;
+import game.RandomModel;
+import interfaces.InterfaceModel;
+import interfaces.InterfaceView;
+import util.GameSettings;
+import util.SplitMix64;
+
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * This class plays the games of one connection of the game server, reading one command line at a time and writing
+ * one reply line for each. It owns the model of the game, so a session must only be used by one thread at a time.
+ * The commands are:
+ *   NEW FIXED [seed]            starts a fixed setup game
+ *   NEW RANDOM [seed] [dogs]    starts a random setup game with the given number of dogs, one by default
+ *   MOVE keys                   moves the dogs, one key of 'w', 'a', 's', 'd' or 'o' for each dog, and the sheep
+ *   BOARD                       sends the whole board again
+ *   QUIT                        ends the session
+ * A new game and BOARD are answered with "BOARD rows cols turns state cells", where cells holds one digit for every
+ * cell, row after row, with the cell types of Animals. A move is answered with "DELTA turns state n cell:type ...",
+ * which lists the n changes of cells made by the turn, in the order the model made them, each as row * cols + col
+ * with its new type. A cell changed more than once is listed each time, so applying the changes in order gives the
+ * board after the turn. The state is the game state of InterfaceModel. A command that cannot be played is answered
+ * with "ERR message". The turns are played by a match, with the session as its view, which is given the changes.
+ */
+public class GameSession implements InterfaceView
+{
+    private Model model;
+    private Match match;
+    private char[] moves = new char[0];
+    private boolean ended;
+    // The changes of cells made by the turn being played, as written in its reply, and their number.
+    private final StringBuilder changes = new StringBuilder();
+    private int nrChanges;
+    // The move the match rejected in the turn being played, or 0 if it took every move.
+    private char rejectedMove;
+
+    // Handles the given command line and appends its reply line, ending with a new line, to the given builder.
+    public void handle(CharSequence line, StringBuilder reply)
+    {
+        String[] words = line.toString().trim().split(" +");
+        try
+        {
+            switch (words[0])
+            {
+                case "NEW" -> startGame(words, reply);
+                case "MOVE" -> playTurn(words, reply);
+                case "BOARD" -> writeBoard(reply);
+                case "QUIT" ->
+                {
+                    ended = true;
+                    reply.append("BYE");
+                }
+                default -> reply.append("ERR unknown command ").append(words[0]);
+            }
+        }
+        catch (IllegalArgumentException e)
+        {
+            reply.append("ERR ").append(e.getMessage());
+        }
+        reply.append('\n');
+    }
+
+    // Returns true once the client asked to end the session.
+    public boolean isEnded()
+    {
+        return ended;
+    }
+
+    // Getter of the model of the current game, or null before the first game.
+    public Model getModel()
+    {
+        return model;
+    }
+
+    // Starts the game asked for by the words of a NEW command, and writes its board.
+    private void startGame(String[] words, StringBuilder reply)
+    {
+        if (words.length < 2)
+        {
+            throw new IllegalArgumentException("NEW needs FIXED or RANDOM");
+        }
+        long seed = words.length < 3 ? ThreadLocalRandom.current().nextLong() : Long.parseLong(words[2]);
+        if (words[1].equals("FIXED"))
+        {
+            GameSettings settings = new GameSettings();
+            model = new FixedModel(settings, new SplitMix64(seed));
+            model.initNewGame(settings);
+        }
+        else if (words[1].equals("RANDOM"))
+        {
+            int nrDogs = words.length < 4 ? 1 : Integer.parseInt(words[3]);
+            if (nrDogs < 1 || nrDogs > 16)
+            {
+                throw new IllegalArgumentException("the number of dogs must be from 1 to 16: " + nrDogs);
+            }
+            GameSettings defaults = new GameSettings();
+            GameSettings settings = new GameSettings(defaults.getNrBoardRows(), defaults.getNrBoardCols(), nrDogs,
+                    defaults.getNrSheep(), defaults.getNrPenRows(), defaults.getNrPenCols());
+            model = new RandomModel(settings, new SplitMix64(seed));
+            model.initNewGame(settings);
+        }
+        else
+        {
+            throw new IllegalArgumentException("unknown setup " + words[1]);
+        }
+        match = new Match(model, this, null);
+        moves = new char[model.getDogs().size()];
+        writeBoard(reply);
+        match.start();
+    }
+
+    // Plays the turn given by the words of a MOVE command, and writes the cells it changed.
+    private void playTurn(String[] words, StringBuilder reply)
+    {
+        if (model == null)
+        {
+            throw new IllegalArgumentException("no game started");
+        }
+        if (model.getGameState() != InterfaceModel.GAME_IN_PROGRESS)
+        {
+            throw new IllegalArgumentException("the game has ended");
+        }
+        if (words.length != 2 || words[1].length() != moves.length)
+        {
+            throw new IllegalArgumentException("MOVE needs one key for each of the " + moves.length + " dogs");
+        }
+        words[1].getChars(0, moves.length, moves, 0);
+        rejectedMove = 0;
+        changes.setLength(0);
+        nrChanges = 0;
+        byte gameState = match.step(moves);
+        if (rejectedMove != 0)
+        {
+            throw new IllegalArgumentException("rejected move " + rejectedMove);
+        }
+        reply.append("DELTA ").append(match.getMoveCount()).append(' ').append(gameState).append(' ')
+                .append(nrChanges).append(changes);
+    }
+
+    @Override
+    // The board a game starts with is sent in the reply of NEW.
+    public void displayBoard(InterfaceModel model)
+    {
+    }
+
+    @Override
+    // The games of a session are not recorded, so no error of a replay reaches it, and the client is only told
+    // of the commands it cannot play.
+    public void displayError(String message)
+    {
+    }
+
+    @Override
+    // Writes the changes of cells made by the turn, for its reply.
+    public void displayDelta(InterfaceModel model, int[] turnChanges, int nrTurnChanges)
+    {
+        for (int k = 0; k < nrTurnChanges; k++)
+        {
+            changes.append(' ').append(turnChanges[2 * k]).append(':').append(turnChanges[2 * k + 1]);
+        }
+        nrChanges = nrTurnChanges;
+    }
+
+    @Override
+    // Keeps the move the match rejected, which the reply reports.
+    public void displayRejectedMoveMessage(char move)
+    {
+        if (rejectedMove == 0)
+        {
+            rejectedMove = move;
+        }
+    }
+
+    @Override
+    // The client is not welcomed, it starts with a command.
+    public void displayWelcomeMessage()
+    {
+    }
+
+    @Override
+    // The number of turns is sent in the reply of every turn.
+    public void displayMoveCount(int moveCount)
+    {
+    }
+
+    @Override
+    // The client knows the moves it sent.
+    public void displayChosenMove(char move)
+    {
+    }
+
+    @Override
+    // The state of the game is sent in the reply of every turn.
+    public void displayGameState(byte gameState)
+    {
+    }
+
+    // Writes the whole board of the current game.
+    private void writeBoard(StringBuilder reply)
+    {
+        if (model == null)
+        {
+            throw new IllegalArgumentException("no game started");
+        }
+        int nrBoardRows = model.getSettings().getNrBoardRows();
+        int nrBoardCols = model.getSettings().getNrBoardCols();
+        reply.append("BOARD ").append(nrBoardRows).append(' ').append(nrBoardCols).append(' ')
+                .append(match.getMoveCount()).append(' ').append(model.getGameState()).append(' ');
+        for (int i = 0; i < nrBoardRows; i++)
+        {
+            for (int j = 0; j < nrBoardCols; j++)
+            {
+                reply.append((char) ('0' + cellType(i, j)));
+            }
+        }
+    }
+
+    // Returns the type of the given cell as sent to the client, where a recently moved sheep is a sheep.
+    private byte cellType(int row, int col)
+    {
+        byte cellType = model.getCellInfo(row, col);
+        return cellType == Animals.UPDATED_SHEEP_ID ? Animals.SHEEP_ID : cellType;
+    }
+}
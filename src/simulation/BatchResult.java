@@ -0,0 +1,100 @@
+package simulation;
+
+/**
+ * This class holds the totals of a batch of simulated games and the time it took to play them.
+ * Instances are immutable, so partial results of different threads can be combined safely.
+ */
+public class BatchResult
+{
+    private final long games;
+    private final long gamesWon;
+    private final long gamesConceded;
+    private final long gamesUnfinished;
+    private final long moves;
+    private final long elapsedNanos;
+
+    // Creates a result with the given totals.
+    public BatchResult(long games, long gamesWon, long gamesConceded, long gamesUnfinished, long moves,
+                       long elapsedNanos)
+    {
+        this.games = games;
+        this.gamesWon = gamesWon;
+        this.gamesConceded = gamesConceded;
+        this.gamesUnfinished = gamesUnfinished;
+        this.moves = moves;
+        this.elapsedNanos = elapsedNanos;
+    }
+
+    // Returns a result containing the totals of this result and the given one.
+    // The elapsed time is not added, since partial results are played at the same time.
+    public BatchResult combine(BatchResult other)
+    {
+        return new BatchResult(games + other.games, gamesWon + other.gamesWon,
+                gamesConceded + other.gamesConceded, gamesUnfinished + other.gamesUnfinished,
+                moves + other.moves, Math.max(elapsedNanos, other.elapsedNanos));
+    }
+
+    // Returns a copy of this result with the given elapsed time.
+    public BatchResult withElapsedNanos(long elapsedNanos)
+    {
+        return new BatchResult(games, gamesWon, gamesConceded, gamesUnfinished, moves, elapsedNanos);
+    }
+
+    // Getter of number of games played.
+    public long getGames()
+    {
+        return games;
+    }
+
+    // Getter of number of games won.
+    public long getGamesWon()
+    {
+        return gamesWon;
+    }
+
+    // Getter of number of games conceded by the dog policy.
+    public long getGamesConceded()
+    {
+        return gamesConceded;
+    }
+
+    // Getter of number of games stopped because they reached the move limit.
+    public long getGamesUnfinished()
+    {
+        return gamesUnfinished;
+    }
+
+    // Getter of number of dog moves made in all games.
+    public long getMoves()
+    {
+        return moves;
+    }
+
+    // Getter of the wall time of the batch in nanoseconds.
+    public long getElapsedNanos()
+    {
+        return elapsedNanos;
+    }
+
+    // Returns the number of games played per second of wall time.
+    public double gamesPerSecond()
+    {
+        return elapsedNanos == 0 ? 0 : games * 1e9 / elapsedNanos;
+    }
+
+    // Returns the number of dog moves made per second of wall time.
+    public double movesPerSecond()
+    {
+        return elapsedNanos == 0 ? 0 : moves * 1e9 / elapsedNanos;
+    }
+
+    @Override
+    // Returns a short report of the batch.
+    public String toString()
+    {
+        return String.format("%d games (%d won, %d conceded, %d unfinished), %d moves in %.3f s: "
+                        + "%.1f games/s, %.1f moves/s",
+                games, gamesWon, gamesConceded, gamesUnfinished, moves, elapsedNanos / 1e9,
+                gamesPerSecond(), movesPerSecond());
+    }
+}
@@ -0,0 +1,156 @@
+package simulation;
+
+import interfaces.InterfaceDogPolicy;
+import interfaces.InterfaceModel;
+import interfaces.InterfaceRandomSource;
+import util.GameSettings;
+import util.SplitMix64;
+
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+import java.util.function.BiFunction;
+
+/**
+ * This class plays complete games without a view, with a dog policy in place of the player, or one for each dog.
+ * Games are spread over a fork-join pool, and every game owns its model and its random source, so no mutable
+ * state is shared between the threads and a game depends only on its seed, whichever thread plays it.
+ */
+public class BatchSimulator
+{
+    // Number of games a task plays itself instead of splitting them further.
+    private static final int GAMES_PER_TASK = 16;
+
+    private final GameSettings settings;
+    private final BiFunction<GameSettings, InterfaceRandomSource, InterfaceModel> modelFactory;
+    // The policy of each dog, by its position in the dog list. Dogs past the last policy are moved by the last policy.
+    private final InterfaceDogPolicy[] policies;
+    private final int maxMovesPerGame;
+
+    // Creates a simulator playing games created by the factory (such as FixedModel::new or RandomModel::new)
+    // from the given settings template and a random source. A game that is not won after the given number of moves
+    // is stopped.
+    public BatchSimulator(GameSettings settings,
+                          BiFunction<GameSettings, InterfaceRandomSource, InterfaceModel> modelFactory,
+                          InterfaceDogPolicy policy, int maxMovesPerGame)
+    {
+        this(settings, modelFactory, new InterfaceDogPolicy[] {policy}, maxMovesPerGame);
+    }
+
+    // Creates a simulator like the constructor above, where the dog of each position in the dog list of a game
+    // is moved by the policy of the same position, or by the last policy if there are fewer policies than dogs.
+    public BatchSimulator(GameSettings settings,
+                          BiFunction<GameSettings, InterfaceRandomSource, InterfaceModel> modelFactory,
+                          InterfaceDogPolicy[] policies, int maxMovesPerGame)
+    {
+        if (policies.length == 0)
+        {
+            throw new IllegalArgumentException("At least one dog policy is needed");
+        }
+        if (maxMovesPerGame < 1)
+        {
+            throw new IllegalArgumentException("The move limit must be at least 1: " + maxMovesPerGame);
+        }
+        this.settings = settings;
+        this.modelFactory = modelFactory;
+        this.policies = policies.clone();
+        this.maxMovesPerGame = maxMovesPerGame;
+    }
+
+    // Plays one game for every seed from firstSeed (inclusive) to lastSeed (exclusive) on the given pool,
+    // and returns the totals with the wall time of the batch.
+    public BatchResult run(long firstSeed, long lastSeed, ForkJoinPool pool)
+    {
+        if (lastSeed < firstSeed)
+        {
+            throw new IllegalArgumentException("Empty seed range: " + firstSeed + " to " + lastSeed);
+        }
+        long start = System.nanoTime();
+        BatchResult result = pool.invoke(new GamesTask(firstSeed, lastSeed));
+        return result.withElapsedNanos(System.nanoTime() - start);
+    }
+
+    // Plays one game for every seed in the range on the common pool, which uses all available cores.
+    public BatchResult run(long firstSeed, long lastSeed)
+    {
+        return run(firstSeed, lastSeed, ForkJoinPool.commonPool());
+    }
+
+    // Plays a single game and returns its result. The seed decides the setup, the sheep and the dog policy,
+    // so the same seed always plays the same game.
+    public BatchResult playGame(long seed)
+    {
+        SplitMix64 gameRandom = new SplitMix64(seed);
+        InterfaceModel model = modelFactory.apply(settings, gameRandom.split());
+        InterfaceRandomSource policyRandom = gameRandom.split();
+        model.initNewGame(settings);
+        char[] moves = new char[model.getDogs().size()];
+
+        int moveCount = 0;
+        while (model.getGameState() == InterfaceModel.GAME_IN_PROGRESS && moveCount < maxMovesPerGame)
+        {
+            // Every dog chooses its move on the board left by the previous turn.
+            boolean conceded = false;
+            for (int dogNumber = 0; dogNumber < moves.length; dogNumber++)
+            {
+                char move = policies[Math.min(dogNumber, policies.length - 1)].chooseMove(model, dogNumber,
+                        policyRandom);
+                if (!model.isMoveValid(dogNumber, move))
+                {
+                    throw new IllegalStateException("The dog policy made the rejected move '" + move + "'");
+                }
+                moves[dogNumber] = move;
+                conceded |= move == 'o';
+            }
+            model.makeMoves(moves);
+
+            // Conceding ends the game without moving the sheep, as in the match loop of the controller.
+            if (!conceded)
+            {
+                model.sheepBehaviour();
+                moveCount += 1;
+            }
+        }
+
+        byte gameState = model.getGameState();
+        return new BatchResult(1,
+                gameState == InterfaceModel.GAME_WON ? 1 : 0,
+                gameState == InterfaceModel.CONCEDE_MOVE ? 1 : 0,
+                gameState == InterfaceModel.GAME_IN_PROGRESS ? 1 : 0,
+                moveCount, 0);
+    }
+
+    // Plays the games of a range of seeds, splitting the range in halves until it is small enough.
+    private class GamesTask extends RecursiveTask<BatchResult>
+    {
+        private static final long serialVersionUID = 1L;
+
+        private final long firstSeed;
+        private final long lastSeed;
+
+        GamesTask(long firstSeed, long lastSeed)
+        {
+            this.firstSeed = firstSeed;
+            this.lastSeed = lastSeed;
+        }
+
+        @Override
+        protected BatchResult compute()
+        {
+            if (lastSeed - firstSeed <= GAMES_PER_TASK)
+            {
+                BatchResult result = new BatchResult(0, 0, 0, 0, 0, 0);
+                for (long seed = firstSeed; seed < lastSeed; seed++)
+                {
+                    result = result.combine(playGame(seed));
+                }
+                return result;
+            }
+
+            long middleSeed = firstSeed + (lastSeed - firstSeed) / 2;
+            GamesTask firstHalf = new GamesTask(firstSeed, middleSeed);
+            firstHalf.fork();
+            BatchResult secondHalf = new GamesTask(middleSeed, lastSeed).compute();
+            return firstHalf.join().combine(secondHalf);
+        }
+    }
+}
@@ -0,0 +1,351 @@
+package simulation;
+
+import animals.Sheep;
+import game.Model;
+import game.ModelSnapshot;
+import game.PenDistanceField;
+import interfaces.InterfaceModel;
+import util.Direction;
+
+import java.util.Arrays;
+
+/**
+ * This class searches for moves of the dog that pen every sheep, playing the turns of a model from snapshots
+ * of its states. The search is a weighted A*: the state with the lowest number of moves so far plus the weighted
+ * distance of the sheep to the pen is tried next. With a beam width, only that many of the best waiting states are
+ * kept, which bounds the memory of the search and turns it into a beam search on large boards.
+ * States are recognised by the Zobrist hash of the board kept by the model, so a state reached again by as many
+ * moves or more is not searched twice. The random source of the model is not part of the hash: two states with
+ * the same animals are taken as the same state, although the sheep of the one reached later may move differently.
+ * A planner keeps its tables between searches and must be used by one thread at a time.
+ */
+public class DogPlanner
+{
+    // The moves the dog can make, in the order they are tried when the ordering cache knows none of them.
+    private static final Direction[] MOVES = Direction.values();
+
+    // Number of entries of the move ordering cache, a power of two.
+    private static final int ORDERING_CACHE_SIZE = 1 << 16;
+
+    private final int nodeBudget;
+    private final int beamWidth;
+    private final double heuristicWeight;
+
+    // Transposition table: the hash of every state found in the current search, by open addressing,
+    // and the smallest number of moves it was reached in. A key of 0 marks an empty slot.
+    private final long[] tableKeys;
+    private final int[] tableDepths;
+    private final int tableMask;
+
+    // Move ordering cache: for the hash of a state, the move that led to its most promising next state the last
+    // time it was searched, tried first the next time. Entries are overwritten by any other state with the same slot.
+    private final long[] orderingKeys = new long[ORDERING_CACHE_SIZE];
+    private final byte[] orderingMoves = new byte[ORDERING_CACHE_SIZE];
+
+    // The states of the current search. A state keeps its snapshot until its moves have been tried.
+    private final ModelSnapshot[] snapshots;
+    private final long[] hashes;
+    private final int[] parents;
+    private final byte[] moves;
+    private final int[] depths;
+    private final double[] heuristics;
+    private final double[] scores;
+    private int nrNodes;
+    // Number of states computed in the current search, including those already found.
+    private long nodesGenerated;
+
+    // States waiting for their moves to be tried, in a binary heap ordered by score,
+    // and room for the states kept when the heap is trimmed to the beam width.
+    private final int[] open;
+    private int openSize;
+    private final int[] kept;
+
+    // Hash and heuristic of the state last evaluated.
+    private long evaluatedHash;
+    private double evaluatedHeuristic;
+
+    // Creates a planner computing at most nodeBudget states per search. A beam width of 0 keeps every waiting state.
+    // A heuristic weight above 1 finds longer plans with fewer states.
+    public DogPlanner(int nodeBudget, int beamWidth, double heuristicWeight)
+    {
+        if (nodeBudget < 1)
+        {
+            throw new IllegalArgumentException("The node budget must be at least 1: " + nodeBudget);
+        }
+        if (beamWidth < 0)
+        {
+            throw new IllegalArgumentException("The beam width must not be negative: " + beamWidth);
+        }
+        if (!(heuristicWeight > 0))
+        {
+            throw new IllegalArgumentException("The heuristic weight must be positive: " + heuristicWeight);
+        }
+        this.nodeBudget = nodeBudget;
+        this.beamWidth = beamWidth;
+        this.heuristicWeight = heuristicWeight;
+
+        // The root and every computed state fit in the table with at least half of it empty.
+        int tableSize = Integer.highestOneBit(nodeBudget) << 2;
+        this.tableKeys = new long[tableSize];
+        this.tableDepths = new int[tableSize];
+        this.tableMask = tableSize - 1;
+
+        this.snapshots = new ModelSnapshot[nodeBudget + 1];
+        this.hashes = new long[nodeBudget + 1];
+        this.parents = new int[nodeBudget + 1];
+        this.moves = new byte[nodeBudget + 1];
+        this.depths = new int[nodeBudget + 1];
+        this.heuristics = new double[nodeBudget + 1];
+        this.scores = new double[nodeBudget + 1];
+        this.open = new int[nodeBudget + 1];
+        this.kept = new int[beamWidth];
+    }
+
+    // Searches for moves that pen every sheep of the given model, starting from its current state, and puts
+    // the model back in that state afterwards. The turns are played by the model itself, so the plan holds for
+    // its herding rules and its random source.
+    public PlanResult plan(Model model)
+    {
+        long start = System.nanoTime();
+        ModelSnapshot root = model.snapshot();
+        Arrays.fill(tableKeys, 0);
+        nrNodes = 0;
+        nodesGenerated = 0;
+        openSize = 0;
+
+        evaluate(model);
+        int rootNode = addNode(root, -1, (byte) 0, 0);
+        insertState(evaluatedHash, 0);
+        int solvedNode = model.getGameState() == InterfaceModel.GAME_WON ? rootNode : -1;
+        int bestNode = rootNode;
+        if (model.getGameState() == InterfaceModel.GAME_IN_PROGRESS)
+        {
+            pushOpen(rootNode);
+        }
+
+        long nodesExpanded = 0;
+        search:
+        while (solvedNode < 0 && openSize > 0)
+        {
+            int node = pollOpen();
+            ModelSnapshot snapshot = snapshots[node];
+            snapshots[node] = null;
+            nodesExpanded++;
+
+            // Try the move the ordering cache remembers for this state first, then the others in their usual order.
+            int slot = (int) (hashes[node] >>> 48) & (ORDERING_CACHE_SIZE - 1);
+            int firstMove = orderingKeys[slot] == hashes[node] ? orderingMoves[slot] : 0;
+            int bestMove = -1;
+            double bestHeuristic = Double.MAX_VALUE;
+            for (int k = 0; k < MOVES.length; k++)
+            {
+                int moveIndex = (firstMove + k) % MOVES.length;
+                char move = MOVES[moveIndex].getKey();
+                model.restore(snapshot);
+                if (!model.isMoveValid(move))
+                {
+                    continue;
+                }
+                if (nodesGenerated == nodeBudget)
+                {
+                    break search;
+                }
+                model.makeMove(move);
+                model.sheepBehaviour();
+                nodesGenerated++;
+                evaluate(model);
+                if (evaluatedHeuristic < bestHeuristic)
+                {
+                    bestMove = moveIndex;
+                    bestHeuristic = evaluatedHeuristic;
+                }
+
+                int depth = depths[node] + 1;
+                if (model.getGameState() == InterfaceModel.GAME_WON)
+                {
+                    solvedNode = addNode(null, node, (byte) moveIndex, depth);
+                    bestMove = moveIndex;
+                    break;
+                }
+                if (!insertState(evaluatedHash, depth))
+                {
+                    continue;
+                }
+                int child = addNode(model.snapshot(), node, (byte) moveIndex, depth);
+                if (heuristics[child] < heuristics[bestNode])
+                {
+                    bestNode = child;
+                }
+                pushOpen(child);
+            }
+
+            if (bestMove >= 0)
+            {
+                orderingKeys[slot] = hashes[node];
+                orderingMoves[slot] = (byte) bestMove;
+            }
+            if (beamWidth > 0 && openSize > 2 * beamWidth)
+            {
+                trimOpen();
+            }
+        }
+
+        model.restore(root);
+        String plan = movesTo(solvedNode >= 0 ? solvedNode : bestNode);
+        Arrays.fill(snapshots, 0, nrNodes, null);
+        return new PlanResult(solvedNode >= 0, plan, nodesGenerated, nodesExpanded, System.nanoTime() - start);
+    }
+
+    // Reads the hash and computes the heuristic of the current state of the model. The heuristic is the sum
+    // of the distances of the sheep outside the pen to their nearest pen cell, plus the distance of the dog
+    // to its nearest sheep.
+    private void evaluate(Model model)
+    {
+        PenDistanceField penDistanceField = model.getPenDistanceField();
+        int dogRow = model.getDog().getRow();
+        int dogCol = model.getDog().getCol();
+
+        double heuristic = 0;
+        long nearestSheepDistance = Long.MAX_VALUE;
+        for (Sheep sheep : model.getSheep())
+        {
+            if (!sheep.isInPen())
+            {
+                int row = sheep.getRow();
+                int col = sheep.getCol();
+                heuristic += Math.sqrt(penDistanceField.squaredDistance(row, col));
+                long dRow = row - dogRow;
+                long dCol = col - dogCol;
+                nearestSheepDistance = Math.min(nearestSheepDistance, dRow * dRow + dCol * dCol);
+            }
+        }
+        if (nearestSheepDistance != Long.MAX_VALUE)
+        {
+            heuristic += Math.sqrt(nearestSheepDistance);
+        }
+        evaluatedHash = model.stateHash();
+        evaluatedHeuristic = heuristic;
+    }
+
+    // Stores a state with the hash and heuristic last evaluated, and returns its node.
+    private int addNode(ModelSnapshot snapshot, int parent, byte move, int depth)
+    {
+        int node = nrNodes++;
+        snapshots[node] = snapshot;
+        hashes[node] = evaluatedHash;
+        parents[node] = parent;
+        moves[node] = move;
+        depths[node] = depth;
+        heuristics[node] = evaluatedHeuristic;
+        scores[node] = depth + heuristicWeight * evaluatedHeuristic;
+        return node;
+    }
+
+    // Records that the state with the given hash was reached in the given number of moves. Returns false if it was
+    // already reached in as many moves or fewer, in which case it need not be searched again.
+    private boolean insertState(long hash, int depth)
+    {
+        // 0 marks an empty slot, so the one state hashing to 0 shares its slot with the state hashing to 1.
+        long key = hash == 0 ? 1 : hash;
+        int slot = (int) key & tableMask;
+        while (tableKeys[slot] != 0)
+        {
+            if (tableKeys[slot] == key)
+            {
+                if (tableDepths[slot] <= depth)
+                {
+                    return false;
+                }
+                tableDepths[slot] = depth;
+                return true;
+            }
+            slot = (slot + 1) & tableMask;
+        }
+        tableKeys[slot] = key;
+        tableDepths[slot] = depth;
+        return true;
+    }
+
+    // Returns the moves from the root of the search to the given node.
+    private String movesTo(int node)
+    {
+        char[] plan = new char[depths[node]];
+        for (int n = node; parents[n] >= 0; n = parents[n])
+        {
+            plan[depths[n] - 1] = MOVES[moves[n]].getKey();
+        }
+        return new String(plan);
+    }
+
+    // Returns true if the first node is tried before the second: a lower score first, and the node computed first
+    // among equal scores, which is the move the ordering cache put first.
+    private boolean before(int first, int second)
+    {
+        return scores[first] < scores[second] || (scores[first] == scores[second] && first < second);
+    }
+
+    // Adds the given node to the waiting states.
+    private void pushOpen(int node)
+    {
+        int i = openSize++;
+        while (i > 0)
+        {
+            int parent = (i - 1) >>> 1;
+            if (!before(node, open[parent]))
+            {
+                break;
+            }
+            open[i] = open[parent];
+            i = parent;
+        }
+        open[i] = node;
+    }
+
+    // Removes and returns the waiting state to be tried next.
+    private int pollOpen()
+    {
+        int first = open[0];
+        int last = open[--openSize];
+        int i = 0;
+        while (true)
+        {
+            int child = 2 * i + 1;
+            if (child >= openSize)
+            {
+                break;
+            }
+            if (child + 1 < openSize && before(open[child + 1], open[child]))
+            {
+                child++;
+            }
+            if (!before(open[child], last))
+            {
+                break;
+            }
+            open[i] = open[child];
+            i = child;
+        }
+        if (openSize > 0)
+        {
+            open[i] = last;
+        }
+        return first;
+    }
+
+    // Keeps only the beamWidth best waiting states and drops the snapshots of the others. Trimming once the heap
+    // holds twice the beam width costs a logarithmic time per state, like the heap itself.
+    private void trimOpen()
+    {
+        for (int k = 0; k < beamWidth; k++)
+        {
+            kept[k] = pollOpen();
+        }
+        for (int k = 0; k < openSize; k++)
+        {
+            snapshots[open[k]] = null;
+        }
+        // The kept states were taken out in order, which is a valid heap.
+        System.arraycopy(kept, 0, open, 0, beamWidth);
+        openSize = beamWidth;
+    }
+}
@@ -0,0 +1,70 @@
+package simulation;
+
+/**
+ * This class holds what a search of the dog planner found: the moves that pen every sheep, if it found them,
+ * and how many game states it visited in how much time.
+ */
+public class PlanResult
+{
+    private final boolean solved;
+    private final String moves;
+    private final long nodesGenerated;
+    private final long nodesExpanded;
+    private final long elapsedNanos;
+
+    // Creates a result with the given moves and totals.
+    public PlanResult(boolean solved, String moves, long nodesGenerated, long nodesExpanded, long elapsedNanos)
+    {
+        this.solved = solved;
+        this.moves = moves;
+        this.nodesGenerated = nodesGenerated;
+        this.nodesExpanded = nodesExpanded;
+        this.elapsedNanos = elapsedNanos;
+    }
+
+    // Returns true if the moves pen every sheep.
+    public boolean isSolved()
+    {
+        return solved;
+    }
+
+    // Getter of the moves of the dog, with the characters of the player, that pen every sheep,
+    // or of the moves to the most promising state found if the search ran out of nodes.
+    public String getMoves()
+    {
+        return moves;
+    }
+
+    // Getter of number of game states computed, which is the number of turns played.
+    public long getNodesGenerated()
+    {
+        return nodesGenerated;
+    }
+
+    // Getter of number of game states whose moves were tried.
+    public long getNodesExpanded()
+    {
+        return nodesExpanded;
+    }
+
+    // Getter of the wall time of the search in nanoseconds.
+    public long getElapsedNanos()
+    {
+        return elapsedNanos;
+    }
+
+    // Returns the number of game states computed per second of wall time.
+    public double nodesPerSecond()
+    {
+        return elapsedNanos == 0 ? 0 : nodesGenerated * 1e9 / elapsedNanos;
+    }
+
+    @Override
+    // Returns a short report of the search.
+    public String toString()
+    {
+        return String.format("%s in %d moves, %d nodes (%d expanded) in %.3f s: %.1f nodes/s",
+                solved ? "solved" : "unsolved", moves.length(), nodesGenerated, nodesExpanded, elapsedNanos / 1e9,
+                nodesPerSecond());
+    }
+}
@@ -0,0 +1,37 @@
+package simulation;
+
+import interfaces.InterfaceDogPolicy;
+import interfaces.InterfaceModel;
+import interfaces.InterfaceRandomSource;
+import util.Direction;
+
+/**
+ * This class implements InterfaceDogPolicy and moves a dog to a random valid cell next to it.
+ * It concedes only when the dog has no valid move left.
+ */
+public class RandomDogPolicy implements InterfaceDogPolicy
+{
+    // The moves the dog can make, in the order they are considered.
+    private static final Direction[] MOVES = Direction.values();
+
+    @Override
+    // Picks uniformly one of the valid moves of the given dog, or concedes if there is none.
+    public char chooseMove(InterfaceModel model, int dogNumber, InterfaceRandomSource random)
+    {
+        char[] validMoves = new char[MOVES.length];
+        int nrValidMoves = 0;
+        for (Direction move : MOVES)
+        {
+            if (model.isMoveValid(dogNumber, move.getKey()))
+            {
+                validMoves[nrValidMoves++] = move.getKey();
+            }
+        }
+
+        if (nrValidMoves == 0)
+        {
+            return 'o';
+        }
+        return validMoves[random.nextInt(0, nrValidMoves)];
+    }
+}
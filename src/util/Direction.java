@@ -0,0 +1,60 @@
+package util;
+
+/**
+ * The four directions an animal can move in, with the change of row and column of each move
+ * and the key the player types for it.
+ */
+
+public enum Direction
+{
+    UP(-1, 0, 'w'),
+    DOWN(1, 0, 's'),
+    LEFT(0, -1, 'a'),
+    RIGHT(0, 1, 'd');
+
+    // The direction of every key the player can type, indexed by the key, or null for the other keys.
+    private static final Direction[] DIRECTION_OF_KEY = new Direction[128];
+
+    static
+    {
+        for (Direction direction : values())
+        {
+            DIRECTION_OF_KEY[direction.key] = direction;
+        }
+    }
+
+    private final int rowDelta;
+    private final int colDelta;
+    private final char key;
+
+    Direction(int rowDelta, int colDelta, char key)
+    {
+        this.rowDelta = rowDelta;
+        this.colDelta = colDelta;
+        this.key = key;
+    }
+
+    // Returns the direction of the given key, or null if the key is not a move.
+    public static Direction fromKey(char key)
+    {
+        return key < DIRECTION_OF_KEY.length ? DIRECTION_OF_KEY[key] : null;
+    }
+
+    // Getter of the change of row of a move in this direction.
+    public int getRowDelta()
+    {
+        return rowDelta;
+    }
+
+    // Getter of the change of column of a move in this direction.
+    public int getColDelta()
+    {
+        return colDelta;
+    }
+
+    // Getter of the key the player types to move in this direction.
+    public char getKey()
+    {
+        return key;
+    }
+}
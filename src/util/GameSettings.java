@@ -24,6 +24,11 @@ public class GameSettings
 		return nrBoardCols;
 	}
 
+    // Getter of number of dogs.
+	public int getNrDogs() {
+		return nrDogs;
+	}
+
     // Getter of number of sheep.
 	public int getNrSheep() {
 		return nrSheep;
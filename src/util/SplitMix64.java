@@ -0,0 +1,109 @@
+package util;
+
+import interfaces.InterfaceRandomSource;
+
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * This class implements InterfaceRandomSource with the SplitMix64 generator: a single 64-bit state
+ * advanced by a constant and scrambled into each output. It is fast, has no locks or thread-local lookups,
+ * and the same seed always gives the same numbers.
+ */
+public class SplitMix64 implements InterfaceRandomSource
+{
+    // Odd constant added to the state for each number, derived from the golden ratio.
+    private static final long GOLDEN_GAMMA = 0x9e3779b97f4a7c15L;
+
+    private long state;
+
+    // Creates a source with the given seed.
+    public SplitMix64(long seed)
+    {
+        this.state = seed;
+    }
+
+    // Creates a source with an unpredictable seed, for games that do not need to be reproduced.
+    public SplitMix64()
+    {
+        this(ThreadLocalRandom.current().nextLong());
+    }
+
+    @Override
+    // Returns the state of the source, which is the seed of a new source giving the same numbers from now on.
+    public long getState()
+    {
+        return state;
+    }
+
+    @Override
+    // Restarts the source from the given state, so it gives the same numbers as a new source with that seed.
+    public void setState(long state)
+    {
+        this.state = state;
+    }
+
+    @Override
+    // Returns a random long.
+    public long nextLong()
+    {
+        state += GOLDEN_GAMMA;
+        return mix64(state);
+    }
+
+    @Override
+    // Returns a random boolean, using the highest bit of the next long.
+    public boolean nextBoolean()
+    {
+        return nextLong() < 0;
+    }
+
+    @Override
+    // Returns a random int from origin (inclusive) to bound (exclusive), without bias towards any value.
+    public int nextInt(int origin, int bound)
+    {
+        if (origin >= bound)
+        {
+            throw new IllegalArgumentException("bound must be greater than origin: " + origin + ", " + bound);
+        }
+        int range = bound - origin;
+        if (range > 0)
+        {
+            // Multiply a random 32-bit value by the range and keep the high half, rejecting the few low halves
+            // that would make some values more likely than others.
+            long product = (nextLong() >>> 32) * range;
+            if ((product & 0xffffffffL) < range)
+            {
+                long threshold = (0x100000000L - range) % range;
+                while ((product & 0xffffffffL) < threshold)
+                {
+                    product = (nextLong() >>> 32) * range;
+                }
+            }
+            return origin + (int) (product >>> 32);
+        }
+
+        // The range does not fit in an int, so draw ints until one falls inside it.
+        int value;
+        do
+        {
+            value = (int) (nextLong() >>> 32);
+        }
+        while (value < origin || value >= bound);
+        return value;
+    }
+
+    @Override
+    // Returns a new source seeded from the next long of this one.
+    public SplitMix64 split()
+    {
+        return new SplitMix64(mix64(nextLong()));
+    }
+
+    // Scrambles the bits of the given value, so that consecutive states give unrelated outputs.
+    public static long mix64(long z)
+    {
+        z = (z ^ (z >>> 30)) * 0xbf58476d1ce4e5b9L;
+        z = (z ^ (z >>> 27)) * 0x94d049bb133111ebL;
+        return z ^ (z >>> 31);
+    }
+}
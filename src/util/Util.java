@@ -3,8 +3,7 @@ package util;
 import java.util.Scanner;
 
 /**
- * This class provides methods to be used by other classes such as single character input method
- * and method calculating the Euclidean distance between 2 points.
+ * This class provides methods to be used by other classes such as single character input method.
  */
 
 public class Util
@@ -33,12 +32,4 @@ public class Util
         }
         while(true);
     }
-
-    // Calculates the Euclidean distance between 2 specified points. Returns a double containing the distance.
-    public static double euclideanDistance(int row1, int col1, int row2, int col2)
-    {
-        // Returns Euclidean distance formula result.
-        return Math.sqrt((row2 - row1) * (row2 - row1) +
-                (col2 - col1) * (col2 - col1));
-    }
 }
@@ -0,0 +1,33 @@
+package util;
+
+/**
+ * This class gives the Zobrist keys of the cells of a board. The hash of a board is the XOR of the key of its
+ * dimensions and the keys of its cells, so changing one cell changes the hash by two XORs. The key of a cell type
+ * on a cell is computed by scrambling the two together rather than read from a table of random numbers,
+ * so boards of any size need no table.
+ */
+public class Zobrist
+{
+    // Added to every input before it is scrambled, so the keys are not those of small seeds of SplitMix64.
+    private static final long SALT = 0x2545f4914f6cdd1dL;
+
+    // Returns the key of the dimensions of a board, which is the hash of a board where every cell is grass.
+    // Boards of different sizes share cell indexes, and only this key tells them apart.
+    public static long boardKey(int nrRows, int nrCols)
+    {
+        // Cell keys scramble non-negative values, so a negative value gives a key different from all of them.
+        return SplitMix64.mix64(SALT + (Long.MIN_VALUE | ((long) nrRows << 32) | nrCols));
+    }
+
+    // Returns the key of the given cell type on the cell with the given index, row * nrBoardCols + col.
+    // Grass has the key 0, so the cells without anything on them need not be hashed.
+    public static long key(long cell, byte cellType)
+    {
+        if (cellType == 0)
+        {
+            return 0;
+        }
+        // The scrambling is a one-to-one mapping, so every cell and type gives a different key.
+        return SplitMix64.mix64(SALT + ((cell << 3) | (cellType & 7)));
+    }
+}